@@ -4,10 +4,13 @@ import com.senalbum.album.Album;
 import com.senalbum.album.AlbumRepository;
 import com.senalbum.payment.PaymentTransaction;
 import com.senalbum.payment.PaymentRepository;
-import com.senalbum.photo.PhotoRepository;
 import com.senalbum.photographer.Photographer;
 import com.senalbum.photographer.PhotographerRepository;
 import com.senalbum.photographer.SubscriptionPlan;
+import com.senalbum.storage.HeapCacheStorageService;
+import com.senalbum.storage.OrphanedObjectCollector;
+import com.senalbum.storage.dto.CacheStatsResponse;
+import com.senalbum.storage.dto.StorageGcReport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -33,10 +36,13 @@ public class AdminController {
   private AlbumRepository albumRepository;
 
   @Autowired
-  private PhotoRepository photoRepository;
+  private PaymentRepository paymentRepository;
 
   @Autowired
-  private PaymentRepository paymentRepository;
+  private HeapCacheStorageService storageCache;
+
+  @Autowired
+  private OrphanedObjectCollector orphanedObjectCollector;
 
   /**
    * Statistiques globales de la plateforme
@@ -54,14 +60,14 @@ public class AdminController {
         .count();
 
     long totalAlbums = albumRepository.count();
-    long totalPhotos = photoRepository.count();
+    Long totalPhotos = photographerRepository.getGlobalPhotoCount();
 
     // Calculate total views and downloads
     Long totalViews = albumRepository.getGlobalTotalViews();
     Long totalDownloads = albumRepository.getGlobalTotalDownloads();
 
     // Calculate total storage
-    Long totalStorage = photoRepository.getGlobalTotalSize();
+    Long totalStorage = photographerRepository.getGlobalStorageUsedBytes();
 
     // Calculate monthly revenue from completed transactions this month
     LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
@@ -78,7 +84,7 @@ public class AdminController {
         proUsers,
         enterpriseUsers,
         totalAlbums,
-        totalPhotos,
+        totalPhotos != null ? totalPhotos : 0,
         totalViews != null ? totalViews : 0,
         totalDownloads != null ? totalDownloads : 0,
         totalStorage != null ? totalStorage : 0,
@@ -202,11 +208,28 @@ public class AdminController {
     return ResponseEntity.ok(revenue != null ? revenue : 0.0);
   }
 
+  /**
+   * Statistiques des caches mémoire du stockage (par classe d'objets)
+   */
+  @GetMapping("/storage/cache-stats")
+  public ResponseEntity<List<CacheStatsResponse>> getStorageCacheStats() {
+    return ResponseEntity.ok(storageCache.getStats());
+  }
+
+  /**
+   * Rapport du dernier passage du ramasse-miettes du stockage
+   */
+  @GetMapping("/storage/gc")
+  public ResponseEntity<StorageGcReport> getStorageGcReport() {
+    StorageGcReport report = orphanedObjectCollector.getLastReport();
+    return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+  }
+
   // ============ HELPER METHODS ============
 
   private AdminUserDTO mapToAdminUserDTO(Photographer p) {
     long albumCount = albumRepository.countByPhotographer(p);
-    Long storageUsed = photoRepository.getTotalSize(p.getId());
+    long storageUsed = p.getStorageUsedBytes();
 
     return new AdminUserDTO(
         p.getId(),
@@ -217,7 +240,7 @@ public class AdminController {
         p.getSubscriptionPlan() != null ? p.getSubscriptionPlan().name() : "FREE",
         p.getCreatedAt(),
         albumCount,
-        storageUsed != null ? storageUsed : 0,
+        storageUsed,
         "active", // TODO: Implement proper status tracking
         p.getCreatedAt() // TODO: Track last activity
     );
@@ -234,15 +257,9 @@ public class AdminController {
       ownerEmail = p.getEmail();
     }
 
-    int photoCount = a.getPhotos() != null ? a.getPhotos().size() : 0;
-
-    // Calculate size
-    long sizeBytes = 0;
-    if (a.getPhotos() != null) {
-      sizeBytes = a.getPhotos().stream()
-          .mapToLong(photo -> photo.getSize() != null ? photo.getSize() : 0)
-          .sum();
-    }
+    // Compteurs dénormalisés : pas de chargement des photos
+    int photoCount = (int) a.getPhotoCount();
+    long sizeBytes = a.getStorageUsedBytes();
 
     // Determine status
     String status = "active";
@@ -5,15 +5,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
- * Entité représentant un album de photos
+ * Entité représentant un album de photos.
+ * Un album supprimé garde sa ligne (deleted_at) jusqu'à la purge de ses
+ * fichiers : il est exclu de toutes les requêtes JPQL.
  */
 @Entity
-@Table(name = "albums")
+@Table(name = "albums", indexes = @Index(name = "idx_albums_deleted_at", columnList = "deleted_at"))
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,12 +55,23 @@ public class Album {
     @Column(name = "password_hash")
     private String passwordHash;
 
-    @Column(name = "view_count", columnDefinition = "bigint default 0")
+    // Vues et téléchargements : écrits uniquement par AlbumCounterBuffer (UPDATE incrémental)
+    @Column(name = "view_count", updatable = false, columnDefinition = "bigint default 0")
     private Long viewCount = 0L;
 
-    @Column(name = "download_count", columnDefinition = "bigint default 0")
+    @Column(name = "download_count", updatable = false, columnDefinition = "bigint default 0")
     private Long downloadCount = 0L;
 
+    // Compteurs d'usage : modifiés uniquement par UPDATE atomique (StorageUsageService)
+    @Column(name = "storage_used_bytes", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long storageUsedBytes;
+
+    @Column(name = "photo_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long photoCount;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt; // Suppression demandée, fichiers en cours de purge
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,118 @@
+package com.senalbum.album;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de vues et de téléchargements des albums publics, accumulés en
+ * mémoire (un LongAdder par album) puis écrits périodiquement en un seul
+ * lot d'UPDATE incrémentaux. La lecture d'un album public n'écrit donc
+ * jamais en base, et les accès simultanés ne se disputent plus la ligne de
+ * l'album. À l'arrêt, un dernier lot est écrit avec un délai borné.
+ */
+@Component
+public class AlbumCounterBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumCounterBuffer.class);
+
+    private static final String FLUSH_SQL = "UPDATE albums SET view_count = COALESCE(view_count, 0) + ?,"
+            + " download_count = COALESCE(download_count, 0) + ? WHERE token = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.album.counters.flush-timeout-seconds:5}")
+    private int flushTimeoutSeconds;
+
+    // Entrées conservées après écriture : une par album consulté depuis le démarrage
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private JdbcTemplate flushTemplate;
+
+    @PostConstruct
+    void init() {
+        flushTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        flushTemplate.setQueryTimeout(flushTimeoutSeconds);
+    }
+
+    public void recordView(String token) {
+        counters.computeIfAbsent(token, key -> new Counters()).views.increment();
+    }
+
+    public void recordDownload(String token) {
+        counters.computeIfAbsent(token, key -> new Counters()).downloads.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.album.counters.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Les compteurs restent en mémoire : réessayé au prochain passage
+            logger.warn("Failed to flush album counters: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Album counters lost at shutdown ({} albums): {}", pendingAlbums(), e.getMessage());
+        }
+    }
+
+    /**
+     * Écrit les compteurs accumulés. Seules les valeurs écrites sont retirées
+     * des compteurs : les incréments arrivés pendant l'écriture partent au
+     * lot suivant, et rien n'est perdu si l'écriture échoue.
+     */
+    synchronized void flush() {
+        List<String> tokens = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            long views = entry.getValue().views.sum();
+            long downloads = entry.getValue().downloads.sum();
+            if (views != 0 || downloads != 0) {
+                tokens.add(entry.getKey());
+                batch.add(new Object[] { views, downloads, entry.getKey() });
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        flushTemplate.batchUpdate(FLUSH_SQL, batch);
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Counters written = counters.get(tokens.get(i));
+            written.views.add(-(long) batch.get(i)[0]);
+            written.downloads.add(-(long) batch.get(i)[1]);
+        }
+        logger.debug("Flushed view and download counters of {} albums", batch.size());
+    }
+
+    private long pendingAlbums() {
+        return counters.values().stream()
+                .filter(c -> c.views.sum() != 0 || c.downloads.sum() != 0)
+                .count();
+    }
+
+    private static class Counters {
+        final LongAdder views = new LongAdder();
+        final LongAdder downloads = new LongAdder();
+    }
+}
@@ -0,0 +1,149 @@
+package com.senalbum.album;
+
+import com.senalbum.photo.Photo;
+import com.senalbum.photo.PhotoRenditionRepository;
+import com.senalbum.photo.PhotoRepository;
+import com.senalbum.storage.ContentStore;
+import com.senalbum.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Purge en tâche de fond des albums supprimés. Chaque lot de photos voit ses
+ * fichiers supprimés en un appel groupé, puis ses lignes ; une pause sépare
+ * les lots pour ne saturer ni le stockage ni la base. L'avancement est la
+ * base elle-même : après un redémarrage, la purge reprend où elle s'était
+ * arrêtée. Les dossiers de l'album sont ensuite vidés par préfixe (fichiers
+ * sans ligne : uploads interrompus...), puis la ligne de l'album supprimée.
+ */
+@Component
+public class AlbumPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlbumPurger.class);
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private PhotoRenditionRepository renditionRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Value("${app.album.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.album.purge.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.album.purge.albums-per-run:10}")
+    private int albumsPerRun;
+
+    @Scheduled(fixedDelayString = "${app.album.purge.interval-ms:60000}")
+    public void purgeDeletedAlbums() {
+        for (UUID albumId : albumRepository.findDeletedIds(albumsPerRun)) {
+            try {
+                purge(albumId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Réessayé au prochain passage
+                logger.warn("Failed to purge deleted album {}: {}", albumId, e.getMessage());
+            }
+        }
+    }
+
+    private void purge(UUID albumId) throws Exception {
+        int photoCount = 0;
+        List<Photo> batch;
+        while (!(batch = photoRepository.findByAlbumId(albumId, PageRequest.of(0, batchSize))).isEmpty()) {
+            purgePhotos(albumId, batch);
+            photoCount += batch.size();
+            Thread.sleep(pauseMs);
+        }
+
+        int strayCount = 0;
+        for (String folder : List.of("albums/" + albumId, "previews/" + albumId)) {
+            int deleted;
+            while ((deleted = storageService.deleteFolder(folder, batchSize)) > 0) {
+                strayCount += deleted;
+                Thread.sleep(pauseMs);
+            }
+        }
+
+        String coverPath = albumRepository.findCoverImagePath(albumId);
+        if (coverPath != null) {
+            storageService.deleteFile(coverPath);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> albumRepository.purgeDeleted(albumId));
+        logger.info("Purged deleted album {} ({} photos, {} stray files)", albumId, photoCount, strayCount);
+    }
+
+    /**
+     * Les lignes ne sont supprimées qu'une fois les fichiers partis : un échec
+     * laisse le lot en place pour le passage suivant
+     */
+    private void purgePhotos(UUID albumId, List<Photo> batch) {
+        List<UUID> ids = new ArrayList<>();
+        List<String> sharedOriginals = new ArrayList<>();
+        Set<String> keys = new LinkedHashSet<>();
+        for (Photo photo : batch) {
+            ids.add(photo.getId());
+            if (photo.getContentHash() != null) {
+                sharedOriginals.add(photo.getOriginalPath());
+            } else {
+                keys.add(photo.getOriginalPath());
+            }
+            keys.add(photo.getPreviewPath());
+        }
+        keys.addAll(renditionRepository.findStorageKeysByPhotoIds(ids));
+        keys.removeAll(sharedOriginals);
+        keys.remove(null);
+
+        List<String> failed = storageService.deleteFiles(keys);
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("Failed to delete " + failed.size() + " of " + keys.size() + " files");
+        }
+
+        // Les originaux partagés ne partent qu'avec leur dernière référence, après le commit
+        List<String> released = transactionTemplate.execute(status -> {
+            List<String> unreferenced = new ArrayList<>();
+            for (String key : sharedOriginals) {
+                String toDelete = contentStore.release(key);
+                if (toDelete != null) {
+                    unreferenced.add(toDelete);
+                }
+            }
+            renditionRepository.deleteByPhotoIds(ids);
+            photoRepository.deleteByAlbumIdAndIdIn(albumId, ids);
+            return unreferenced;
+        });
+        if (!released.isEmpty() && !storageService.deleteFiles(released).isEmpty()) {
+            // Plus aucune ligne ne les référence : le ramasse-miettes du stockage les reprendra
+            logger.warn("Failed to delete some shared originals of deleted album {}", albumId);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.senalbum.album;
 
 import com.senalbum.photographer.Photographer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +19,33 @@ public interface AlbumRepository extends JpaRepository<Album, UUID> {
     @Query("SELECT SUM(a.downloadCount) FROM Album a WHERE a.photographer.id = :photographerId")
     Long getTotalDownloads(@Param("photographerId") UUID photographerId);
 
+    // findById passe par find() : cette requête écarte aussi les albums supprimés
+    @Query("SELECT a FROM Album a WHERE a.id = :id")
+    Optional<Album> findActiveById(@Param("id") UUID id);
+
+    // Albums supprimés en attente de purge (ignorés par les requêtes JPQL)
+    @Query(value = "SELECT id FROM albums WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit", nativeQuery = true)
+    List<UUID> findDeletedIds(@Param("limit") int limit);
+
+    @Query(value = "SELECT cover_image_path FROM albums WHERE id = :id", nativeQuery = true)
+    String findCoverImagePath(@Param("id") UUID id);
+
+    @Modifying
+    @Query(value = "DELETE FROM albums WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") UUID id);
+
+    // Compteurs d'usage (voir StorageUsageService)
+    @Modifying
+    @Query(value = "UPDATE albums SET storage_used_bytes = storage_used_bytes + :bytes, photo_count = photo_count + :photos"
+            + " WHERE id = :id", nativeQuery = true)
+    int addUsage(@Param("id") UUID id, @Param("bytes") long bytes, @Param("photos") long photos);
+
+    @Modifying
+    @Query(value = "UPDATE photographers p SET storage_used_bytes = p.storage_used_bytes - a.storage_used_bytes,"
+            + " photo_count = p.photo_count - a.photo_count"
+            + " FROM albums a WHERE a.id = :id AND p.id = a.photographer_id", nativeQuery = true)
+    int releaseUsageToPhotographer(@Param("id") UUID id);
+
     List<Album> findByPhotographerOrderByCreatedAtDesc(Photographer photographer);
 
     Optional<Album> findByToken(String token);
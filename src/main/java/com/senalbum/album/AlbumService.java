@@ -4,6 +4,9 @@ import com.senalbum.album.dto.AlbumCreateRequest;
 import com.senalbum.album.dto.AlbumResponse;
 import com.senalbum.photographer.Photographer;
 import com.senalbum.photographer.PhotographerRepository;
+import com.senalbum.photo.StorageUsageService;
+import com.senalbum.storage.HeapCacheStorageService;
+import com.senalbum.storage.StorageObject;
 import com.senalbum.storage.StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,6 +15,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.security.SecureRandom;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -35,6 +39,15 @@ public class AlbumService {
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private HeapCacheStorageService storageCache;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private AlbumCounterBuffer albumCounterBuffer;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -165,14 +178,15 @@ public class AlbumService {
         Photographer photographer = photographerRepository.findById(photographerId)
                 .orElseThrow(() -> new RuntimeException("Photographer not found"));
 
-        return albumRepository.findByPhotographerOrderByCreatedAtDesc(photographer)
-                .stream()
-                .map(this::toResponse)
+        List<Album> albums = albumRepository.findByPhotographerOrderByCreatedAtDesc(photographer);
+        Map<String, String> coverUrls = presignedCoverUrls(albums);
+        return albums.stream()
+                .map(album -> toResponse(album, coverUrls))
                 .collect(Collectors.toList());
     }
 
     public AlbumResponse getAlbumById(UUID photographerId, UUID albumId) {
-        Album album = albumRepository.findById(albumId)
+        Album album = albumRepository.findActiveById(albumId)
                 .orElseThrow(() -> new RuntimeException("Album not found"));
 
         // Vérifier que l'album appartient au photographe
@@ -211,9 +225,13 @@ public class AlbumService {
         return toResponse(album);
     }
 
+    /**
+     * Supprime l'album immédiatement pour le photographe et ses clients ;
+     * photos et fichiers sont purgés ensuite en tâche de fond (AlbumPurger)
+     */
     @Transactional
     public void deleteAlbum(UUID photographerId, UUID albumId) {
-        Album album = albumRepository.findById(albumId)
+        Album album = albumRepository.findActiveById(albumId)
                 .orElseThrow(() -> new RuntimeException("Album not found"));
 
         // Vérifier que l'album appartient au photographe
@@ -221,46 +239,14 @@ public class AlbumService {
             throw new RuntimeException("Unauthorized: Album does not belong to photographer");
         }
 
-        // Supprimer les fichiers physiques des photos
-        if (album.getPhotos() != null) {
-            System.out.println("DEBUG: Deleting " + album.getPhotos().size() + " photos for album " + albumId);
-            for (com.senalbum.photo.Photo photo : album.getPhotos()) {
-                try {
-                    if (photo.getOriginalPath() != null) {
-                        System.out.println("DEBUG: Deleting original file: " + photo.getOriginalPath());
-                        storageService.deleteFile(photo.getOriginalPath());
-                    }
-                    if (photo.getPreviewPath() != null) {
-                        System.out.println("DEBUG: Deleting preview file: " + photo.getPreviewPath());
-                        storageService.deleteFile(photo.getPreviewPath());
-                    }
-                } catch (Exception e) {
-                    // Log warning but continue
-                    System.err.println(
-                            "Warning: Failed to delete files for photo " + photo.getId() + ": " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
-        } else {
-            System.out.println("DEBUG: No photos found to delete for album " + albumId);
-        }
-
-        // Supprimer l'image de couverture si elle existe
-        if (album.getCoverImagePath() != null) {
-            try {
-                System.out.println("DEBUG: Deleting cover image: " + album.getCoverImagePath());
-                storageService.deleteFile(album.getCoverImagePath());
-            } catch (Exception e) {
-                System.err.println("Warning: Failed to delete album cover: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-
-        albumRepository.delete(album);
+        album.setDeletedAt(java.time.LocalDateTime.now());
+        albumRepository.save(album);
+        // L'espace est rendu tout de suite, les fichiers partent avec la purge
+        storageUsageService.releaseAlbum(albumId);
     }
 
     public Album getAlbumEntity(UUID albumId) {
-        return albumRepository.findById(albumId)
+        return albumRepository.findActiveById(albumId)
                 .orElseThrow(() -> new RuntimeException("Album not found"));
     }
 
@@ -275,42 +261,41 @@ public class AlbumService {
         return album;
     }
 
-    public byte[] getCoverImage(String token) {
+    /**
+     * Clé de la couverture, résolue sans toucher au stockage
+     */
+    public String getCoverImagePath(String token) {
         Album album = getAlbumEntityByToken(token);
         if (album.getCoverImagePath() == null) {
             throw new RuntimeException("Cover image not found");
         }
+        return album.getCoverImagePath();
+    }
+
+    public StorageObject openCoverImage(String coverImagePath) {
         try {
-            return storageService.getPreviewFile(album.getCoverImagePath());
+            return storageCache.openCoverFile(coverImagePath);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get cover image", e);
         }
     }
 
-    @Transactional
+    /**
+     * Comptabilise une vue : accumulée en mémoire, écrite en base par lot
+     * (voir AlbumCounterBuffer)
+     */
     public void incrementViewCount(String token) {
-        Album album = albumRepository.findByToken(token).orElse(null);
-        if (album != null) {
-            Long current = album.getViewCount() != null ? album.getViewCount() : 0L;
-            album.setViewCount(current + 1);
-            albumRepository.save(album);
-        }
+        albumCounterBuffer.recordView(token);
     }
 
-    @Transactional
     public void incrementDownloadCount(String token) {
-        Album album = albumRepository.findByToken(token).orElse(null);
-        if (album != null) {
-            Long current = album.getDownloadCount() != null ? album.getDownloadCount() : 0L;
-            album.setDownloadCount(current + 1);
-            albumRepository.save(album);
-        }
+        albumCounterBuffer.recordDownload(token);
     }
 
     @Transactional
     public AlbumResponse updateAlbum(UUID photographerId, UUID albumId,
             AlbumUpdateRequest request, MultipartFile coverImage) {
-        Album album = albumRepository.findById(albumId)
+        Album album = albumRepository.findActiveById(albumId)
                 .orElseThrow(() -> new RuntimeException("Album not found"));
 
         if (!album.getPhotographer().getId().equals(photographerId)) {
@@ -367,6 +352,34 @@ public class AlbumService {
         return toResponse(album);
     }
 
+    /**
+     * Covers d'une liste d'albums signées en une fois ; vide si le stockage ne
+     * sait pas pré-signer
+     */
+    private Map<String, String> presignedCoverUrls(List<Album> albums) {
+        List<String> keys = albums.stream()
+                .map(Album::getCoverImagePath)
+                .filter(path -> path != null)
+                .collect(Collectors.toList());
+        try {
+            return storageService.generatePresignedDownloadUrls(keys);
+        } catch (Exception e) {
+            return Map.of();
+        }
+    }
+
+    private AlbumResponse toResponse(Album album, Map<String, String> coverUrls) {
+        String coverUrl = null;
+        if (album.getCoverImagePath() != null) {
+            coverUrl = coverUrls.get(album.getCoverImagePath());
+            if (coverUrl == null) {
+                coverUrl = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/public/albums/" + album.getToken() + "/cover").toUriString();
+            }
+        }
+        return toResponse(album, coverUrl);
+    }
+
     private AlbumResponse toResponse(Album album) {
         String coverUrl = null;
         if (album.getCoverImagePath() != null) {
@@ -386,7 +399,10 @@ public class AlbumService {
                         .path("/api/public/albums/" + album.getToken() + "/cover").toUriString();
             }
         }
+        return toResponse(album, coverUrl);
+    }
 
+    private AlbumResponse toResponse(Album album, String coverUrl) {
         Photographer p = album.getPhotographer();
         String brandName = null;
         String brandLogoUrl = null;
@@ -33,6 +33,21 @@ public class DatabaseMigrationRunner implements CommandLineRunner {
       jdbcTemplate
           .execute("ALTER TABLE photographers ADD COLUMN IF NOT EXISTS reset_password_code_expires_at TIMESTAMP");
 
+      // Stockage en base découpé en morceaux (remplace le large object file_contents.data)
+      jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS file_chunks ("
+          + "file_id UUID NOT NULL REFERENCES file_contents(id) ON DELETE CASCADE, "
+          + "chunk_index INTEGER NOT NULL, "
+          + "data BYTEA NOT NULL, "
+          + "PRIMARY KEY (file_id, chunk_index))");
+      jdbcTemplate.execute("DO $$ BEGIN "
+          + "IF EXISTS (SELECT 1 FROM information_schema.columns "
+          + "WHERE table_name = 'file_contents' AND column_name = 'data') THEN "
+          + "ALTER TABLE file_contents ALTER COLUMN data DROP NOT NULL; "
+          + "END IF; END $$");
+
+      // Statut ASSEMBLED des uploads reprenables : la contrainte générée par Hibernate ne le connaît pas
+      jdbcTemplate.execute("ALTER TABLE IF EXISTS upload_sessions DROP CONSTRAINT IF EXISTS upload_sessions_status_check");
+
       logger.info("Migration de la base de données terminée avec succès.");
     } catch (Exception e) {
       logger.warning("Erreur lors de la migration automatique : " + e.getMessage());
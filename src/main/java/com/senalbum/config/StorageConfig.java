@@ -0,0 +1,114 @@
+package com.senalbum.config;
+
+import com.senalbum.storage.DatabaseStorageService;
+import com.senalbum.storage.DiskCacheStorageService;
+import com.senalbum.storage.HeapCacheStorageService;
+import com.senalbum.storage.LocalFileStorageService;
+import com.senalbum.storage.ResumableUploadStore;
+import com.senalbum.storage.StagedResumableUploadStore;
+import com.senalbum.storage.StorageService;
+import com.senalbum.storage.WasabiResumableUploadStore;
+import com.senalbum.storage.WasabiStorageService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Choix du backend de stockage injecté dans l'application
+ * (app.storage.type : wasabi, local ou database) et des caches placés devant
+ */
+@Configuration
+public class StorageConfig {
+
+  @Value("${app.storage.type:wasabi}")
+  private String storageType;
+
+  @Value("${app.storage.disk-cache.enabled:false}")
+  private boolean diskCacheEnabled;
+
+  @Value("${app.storage.disk-cache.path:./cache}")
+  private String diskCachePath;
+
+  @Value("${app.storage.disk-cache.max-bytes:2147483648}")
+  private long diskCacheMaxBytes;
+
+  @Value("${app.storage.disk-cache.max-object-bytes:33554432}")
+  private long diskCacheMaxObjectBytes;
+
+  @Value("${app.storage.heap-cache.cover-max-bytes:33554432}")
+  private long heapCacheCoverMaxBytes;
+
+  @Value("${app.storage.heap-cache.preview-max-bytes:134217728}")
+  private long heapCachePreviewMaxBytes;
+
+  @Value("${app.storage.heap-cache.brand-max-bytes:8388608}")
+  private long heapCacheBrandMaxBytes;
+
+  @Value("${app.storage.heap-cache.original-max-bytes:0}")
+  private long heapCacheOriginalMaxBytes;
+
+  @Value("${app.storage.heap-cache.max-entry-bytes:4194304}")
+  private long heapCacheMaxEntryBytes;
+
+  /**
+   * Backend sélectionné, précédé du cache disque s'il est activé
+   */
+  @Bean
+  public StorageService storageBackend(WasabiStorageService wasabiStorageService,
+      LocalFileStorageService localFileStorageService, DatabaseStorageService databaseStorageService)
+      throws IOException {
+    StorageService backend;
+    switch (storageType.toLowerCase()) {
+      case "local":
+        // Déjà sur le disque local : pas de cache disque
+        return localFileStorageService;
+      case "database":
+        backend = databaseStorageService;
+        break;
+      case "wasabi":
+        backend = wasabiStorageService;
+        break;
+      default:
+        throw new IllegalStateException("Unknown storage type: " + storageType);
+    }
+
+    if (diskCacheEnabled) {
+      DiskCacheStorageService diskCache = new DiskCacheStorageService(backend, diskCachePath,
+          diskCacheMaxBytes, diskCacheMaxObjectBytes);
+      diskCache.init();
+      backend = diskCache;
+    }
+    return backend;
+  }
+
+  /**
+   * StorageService injecté partout : cache mémoire par classe d'objets
+   */
+  @Bean
+  @Primary
+  public HeapCacheStorageService storageService(@Qualifier("storageBackend") StorageService storageBackend) {
+    Map<HeapCacheStorageService.ObjectClass, Long> budgets = new EnumMap<>(HeapCacheStorageService.ObjectClass.class);
+    budgets.put(HeapCacheStorageService.ObjectClass.COVER, heapCacheCoverMaxBytes);
+    budgets.put(HeapCacheStorageService.ObjectClass.PREVIEW, heapCachePreviewMaxBytes);
+    budgets.put(HeapCacheStorageService.ObjectClass.BRAND, heapCacheBrandMaxBytes);
+    budgets.put(HeapCacheStorageService.ObjectClass.ORIGINAL, heapCacheOriginalMaxBytes);
+    return new HeapCacheStorageService(storageBackend, budgets, heapCacheMaxEntryBytes);
+  }
+
+  /**
+   * Uploads reprenables : multipart S3 sur Wasabi, parts posées sur disque
+   * pour les autres backends
+   */
+  @Bean
+  @Primary
+  public ResumableUploadStore resumableUploadStore(WasabiResumableUploadStore wasabiResumableUploadStore,
+      StagedResumableUploadStore stagedResumableUploadStore) {
+    return "wasabi".equalsIgnoreCase(storageType) ? wasabiResumableUploadStore : stagedResumableUploadStore;
+  }
+}
@@ -6,9 +6,11 @@ import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
 
 import java.net.URI;
 
@@ -27,6 +29,15 @@ public class WasabiConfig {
   @Value("${wasabi.endpoint}")
   private String endpoint;
 
+  @Value("${wasabi.upload.part-size-bytes:16777216}")
+  private long uploadPartSizeBytes;
+
+  @Value("${wasabi.upload.max-concurrency:8}")
+  private int uploadMaxConcurrency;
+
+  @Value("${wasabi.upload.part-retries:5}")
+  private int uploadPartRetries;
+
   @Bean
   public S3Client s3Client() {
     return S3Client.builder()
@@ -52,4 +63,30 @@ public class WasabiConfig {
             .build())
         .build();
   }
+
+  /**
+   * Client asynchrone CRT : découpe les gros fichiers en parts envoyées en
+   * parallèle, chaque part étant réessayée individuellement en cas d'échec.
+   */
+  @Bean(destroyMethod = "close")
+  public S3AsyncClient s3AsyncClient() {
+    return S3AsyncClient.crtBuilder()
+        .region(Region.of(region))
+        .endpointOverride(URI.create(endpoint))
+        .credentialsProvider(StaticCredentialsProvider.create(
+            AwsBasicCredentials.create(accessKey, secretKey)))
+        .forcePathStyle(true)
+        .minimumPartSizeInBytes(uploadPartSizeBytes)
+        .thresholdInBytes(uploadPartSizeBytes)
+        .maxConcurrency(uploadMaxConcurrency)
+        .retryConfiguration(retry -> retry.numRetries(uploadPartRetries))
+        .build();
+  }
+
+  @Bean(destroyMethod = "close")
+  public S3TransferManager s3TransferManager(S3AsyncClient s3AsyncClient) {
+    return S3TransferManager.builder()
+        .s3Client(s3AsyncClient)
+        .build();
+  }
 }
@@ -2,7 +2,6 @@ package com.senalbum.dashboard;
 
 import com.senalbum.album.AlbumRepository;
 import com.senalbum.dashboard.dto.DashboardStatsResponse;
-import com.senalbum.photo.PhotoRepository;
 import com.senalbum.photographer.Photographer;
 import com.senalbum.photographer.PhotographerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +17,6 @@ public class DashboardController {
   @Autowired
   private AlbumRepository albumRepository;
 
-  @Autowired
-  private PhotoRepository photoRepository;
-
   @Autowired
   private PhotographerRepository photographerRepository;
 
@@ -31,7 +27,7 @@ public class DashboardController {
     Photographer photographer = photographerRepository.findByEmail(email)
         .orElseThrow(() -> new RuntimeException("Photographer not found"));
 
-    com.senalbum.album.Album album = albumRepository.findById(albumId)
+    com.senalbum.album.Album album = albumRepository.findActiveById(albumId)
         .orElseThrow(() -> new RuntimeException("Album not found"));
 
     // Vérifier que l'album appartient au photographe
@@ -53,7 +49,7 @@ public class DashboardController {
     long activeAlbums = albumRepository.countByPhotographer(photographer);
     Long views = albumRepository.getTotalViews(photographer.getId());
     Long downloads = albumRepository.getTotalDownloads(photographer.getId());
-    Long size = photoRepository.getTotalSize(photographer.getId());
+    long size = photographer.getStorageUsedBytes();
 
     long maxAlbums;
     long totalStorage;
@@ -66,7 +62,7 @@ public class DashboardController {
         activeAlbums,
         views != null ? views : 0,
         downloads != null ? downloads : 0,
-        size != null ? size : 0,
+        size,
         totalStorage,
         maxAlbums,
         photographer.getExtraAlbumCredits() != null ? photographer.getExtraAlbumCredits() : 0);
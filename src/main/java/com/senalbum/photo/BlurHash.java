@@ -0,0 +1,143 @@
+package com.senalbum.photo;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Encodeur BlurHash (https://blurha.sh) : une vingtaine de caractères qui
+ * décrivent les couleurs dominantes d'une image, décodés côté client en un
+ * aperçu flou affiché avant la preview. Calculé une fois par photo, sur une
+ * réduction de quelques dizaines de pixels.
+ */
+final class BlurHash {
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private static final int SAMPLE_SIZE = 32;
+
+    private BlurHash() {
+    }
+
+    /**
+     * 4x3 composantes pour une image en paysage, 3x4 en portrait
+     */
+    static String encode(BufferedImage image) {
+        boolean landscape = image.getWidth() >= image.getHeight();
+        return encode(image, landscape ? 4 : 3, landscape ? 3 : 4);
+    }
+
+    static String encode(BufferedImage image, int componentsX, int componentsY) {
+        BufferedImage sample = downscale(image);
+        int width = sample.getWidth();
+        int height = sample.getHeight();
+        int[] pixels = sample.getRGB(0, 0, width, height, null, 0, width);
+
+        double[] linearR = new double[pixels.length];
+        double[] linearG = new double[pixels.length];
+        double[] linearB = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            linearR[i] = srgbToLinear((pixels[i] >> 16) & 0xFF);
+            linearG[i] = srgbToLinear((pixels[i] >> 8) & 0xFF);
+            linearB[i] = srgbToLinear(pixels[i] & 0xFF);
+        }
+
+        double[][] factors = new double[componentsX * componentsY][3];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                double r = 0;
+                double g = 0;
+                double b = 0;
+                for (int y = 0; y < height; y++) {
+                    double basisY = Math.cos(Math.PI * j * y / height);
+                    for (int x = 0; x < width; x++) {
+                        double basis = Math.cos(Math.PI * i * x / width) * basisY;
+                        int index = y * width + x;
+                        r += basis * linearR[index];
+                        g += basis * linearG[index];
+                        b += basis * linearB[index];
+                    }
+                }
+                double scale = normalisation / (width * height);
+                factors[j * componentsX + i] = new double[] { r * scale, g * scale, b * scale };
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        double maximumValue;
+        if (factors.length > 1) {
+            double actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double component : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(component));
+                }
+            }
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            encode83(quantisedMaximum, 1, hash);
+        } else {
+            maximumValue = 1;
+            encode83(0, 1, hash);
+        }
+
+        double[] dc = factors[0];
+        encode83((linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4, hash);
+        for (int k = 1; k < factors.length; k++) {
+            encode83(encodeAc(factors[k], maximumValue), 2, hash);
+        }
+        return hash.toString();
+    }
+
+    private static BufferedImage downscale(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width <= SAMPLE_SIZE && height <= SAMPLE_SIZE) {
+            return image;
+        }
+        double ratio = (double) SAMPLE_SIZE / Math.max(width, height);
+        int sampleWidth = Math.max(1, (int) Math.round(width * ratio));
+        int sampleHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage sample = new BufferedImage(sampleWidth, sampleHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = sample.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, sampleWidth, sampleHeight, null);
+        g.dispose();
+        return sample;
+    }
+
+    private static int encodeAc(double[] value, double maximumValue) {
+        int r = quantiseAc(value[0] / maximumValue);
+        int g = quantiseAc(value[1] / maximumValue);
+        int b = quantiseAc(value[2] / maximumValue);
+        return r * 19 * 19 + g * 19 + b;
+    }
+
+    private static int quantiseAc(double value) {
+        double signedRoot = Math.copySign(Math.sqrt(Math.abs(value)), value);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        if (v <= 0.0031308) {
+            return (int) (v * 12.92 * 255 + 0.5);
+        }
+        return (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void encode83(int value, int length, StringBuilder out) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            out.append(BASE83.charAt(digit));
+        }
+    }
+}
@@ -4,16 +4,20 @@ import com.senalbum.album.Album;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Entité représentant une photo
  */
 @Entity
-@Table(name = "photos")
+@Table(name = "photos", indexes = @Index(name = "idx_photos_album_captured_at", columnList = "album_id, captured_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,6 +43,37 @@ public class Photo {
     @Column(name = "size")
     private Long size = 0L; // Taille en octets
 
+    @Column(name = "width")
+    private Integer width; // Dimensions de l'original (pixels stockés, avant orientation EXIF)
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "orientation")
+    private Integer orientation; // Tag EXIF Orientation (1 à 8), null si absent
+
+    @Column(name = "captured_at")
+    private LocalDateTime capturedAt; // Date de prise de vue (EXIF), null si inconnue
+
+    @Column(name = "camera", length = 128)
+    private String camera; // Marque et modèle de l'appareil
+
+    @Column(name = "blur_hash", length = 64)
+    private String blurHash; // Aperçu flou (BlurHash) affiché avant le chargement de la preview
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 de l'original s'il est partagé (ContentBlob), sinon null
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "processing_status")
+    private PhotoProcessingStatus processingStatus = PhotoProcessingStatus.READY; // null pour les photos historiques
+
+    @OneToMany(mappedBy = "photo", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("width ASC")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<PhotoRendition> renditions = new ArrayList<>(); // Déclinaisons par largeur
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,319 @@
+package com.senalbum.photo;
+
+import com.senalbum.album.Album;
+import com.senalbum.album.AlbumService;
+import com.senalbum.photo.dto.PhotoArchiveDTO;
+import com.senalbum.storage.StorageObject;
+import com.senalbum.storage.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Téléchargement d'un album complet en une seule archive ZIP.
+ * Les photos (déjà compressées) sont stockées sans recompression (STORED) et
+ * l'archive part vers le client au fil de l'eau. Pendant qu'une photo est
+ * écrite, les suivantes sont lues en parallèle depuis le stockage, dans la
+ * limite d'un budget mémoire partagé par tous les téléchargements en cours.
+ */
+@Service
+public class PhotoArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoArchiveService.class);
+
+    private static final long PERMIT_BYTES = 1024; // Le budget est compté en Ko
+    private static final long UNKNOWN_SIZE_ESTIMATE = 8L * 1024 * 1024;
+
+    @Autowired
+    private AlbumService albumService;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Value("${app.archive.prefetch-count:4}")
+    private int prefetchCount;
+
+    @Value("${app.archive.prefetch-threads:8}")
+    private int prefetchThreads;
+
+    @Value("${app.archive.memory-budget-bytes:268435456}")
+    private long memoryBudgetBytes;
+
+    @Value("${app.archive.budget-wait-seconds:60}")
+    private long budgetWaitSeconds;
+
+    private ExecutorService executor;
+
+    private Semaphore memoryBudget;
+
+    private int budgetPermits;
+
+    @PostConstruct
+    public void start() {
+        if (prefetchCount < 1) {
+            // La photo écrite est toujours prise dans la fenêtre de préchargement
+            throw new IllegalStateException("app.archive.prefetch-count must be at least 1");
+        }
+        if (prefetchThreads < 1) {
+            throw new IllegalStateException("app.archive.prefetch-threads must be at least 1");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(prefetchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "archive-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        budgetPermits = (int) Math.min(Integer.MAX_VALUE, memoryBudgetBytes / PERMIT_BYTES);
+        memoryBudget = new Semaphore(budgetPermits);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Prépare l'archive d'un album public. La liste des photos est lue tout de
+     * suite ; le contenu est écrit quand Spring appelle le corps de réponse.
+     */
+    public PhotoArchiveDTO prepareArchive(String albumToken) {
+        Album album = albumService.getAlbumEntityByToken(albumToken);
+        List<Photo> photos = photoRepository.findByAlbumOrderByCreatedAtAsc(album);
+
+        List<ArchiveEntry> entries = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        for (Photo photo : photos) {
+            long size = photo.getSize() != null && photo.getSize() > 0 ? photo.getSize() : UNKNOWN_SIZE_ESTIMATE;
+            entries.add(new ArchiveEntry(uniqueName(photo, usedNames), photo.getOriginalPath(), size));
+        }
+
+        return new PhotoArchiveDTO(sanitize(album.getTitle(), "album") + ".zip", out -> writeArchive(entries, out));
+    }
+
+    private void writeArchive(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setMethod(ZipOutputStream.STORED);
+        Deque<Prefetch> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                next = schedule(entries, next, pending);
+                Prefetch head = pending.poll();
+                try {
+                    writeEntry(zip, head);
+                } finally {
+                    head.release();
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } catch (IOException e) {
+            // Le plus souvent : le client a interrompu le téléchargement
+            logger.info("Album archive aborted: {}", e.getMessage());
+            throw e;
+        } finally {
+            pending.forEach(Prefetch::cancel);
+        }
+    }
+
+    /**
+     * Lance la lecture des photos suivantes tant que la fenêtre de
+     * préchargement et le budget mémoire le permettent. On n'attend le budget
+     * que si rien n'est en cours pour cette archive : sinon on pourrait
+     * attendre de la mémoire que l'on retient soi-même.
+     */
+    private int schedule(List<ArchiveEntry> entries, int next, Deque<Prefetch> pending) throws IOException {
+        while (next < entries.size() && pending.size() < prefetchCount) {
+            ArchiveEntry entry = entries.get(next);
+            int permits = (int) Math.min(Integer.MAX_VALUE, (entry.size + PERMIT_BYTES - 1) / PERMIT_BYTES);
+            if (permits > budgetPermits) {
+                // Plus gros que tout le budget : écrit sans tampon, en deux lectures
+                pending.add(new Prefetch(entry, 0, null));
+            } else if (pending.isEmpty()) {
+                acquire(permits);
+                pending.add(new Prefetch(entry, permits, executor.submit(() -> fetch(entry, permits))));
+            } else if (memoryBudget.tryAcquire(permits)) {
+                pending.add(new Prefetch(entry, permits, executor.submit(() -> fetch(entry, permits))));
+            } else {
+                break;
+            }
+            next++;
+        }
+        return next;
+    }
+
+    private void acquire(int permits) throws IOException {
+        try {
+            if (!memoryBudget.tryAcquire(permits, budgetWaitSeconds, TimeUnit.SECONDS)) {
+                throw new IOException("Archive memory budget exhausted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for archive memory budget");
+        }
+    }
+
+    /**
+     * Lit la photo en mémoire, sans dépasser la taille réservée dans le
+     * budget : la taille en base peut être fausse. Renvoie null si la photo
+     * est plus grosse, elle est alors écrite sans tampon.
+     */
+    private FetchedFile fetch(ArchiveEntry entry, int permits) throws IOException {
+        long reserved = permits * PERMIT_BYTES;
+        try (StorageObject object = storageService.openOriginalFile(entry.path)) {
+            if (object.getContentLength() > reserved) {
+                return null;
+            }
+            InputStream in = object.getInputStream();
+            byte[] data = in.readNBytes((int) Math.min(reserved, Integer.MAX_VALUE - 8));
+            if (in.read() != -1) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            return new FetchedFile(data, crc.getValue());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, Prefetch prefetch) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(prefetch.entry.name);
+        FetchedFile file = prefetch.future != null ? await(prefetch) : null;
+        if (file != null) {
+            zipEntry.setSize(file.data.length);
+            zipEntry.setCompressedSize(file.data.length);
+            zipEntry.setCrc(file.crc);
+            zip.putNextEntry(zipEntry);
+            zip.write(file.data);
+            zip.closeEntry();
+            return;
+        }
+
+        // Sans tampon (trop gros pour le budget ou pour la taille réservée).
+        // En STORED, taille et CRC précèdent les données : premier passage pour les calculer
+        long size = 0;
+        CRC32 crc = new CRC32();
+        try (StorageObject object = storageService.openOriginalFile(prefetch.entry.path)) {
+            InputStream in = object.getInputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+                size += n;
+            }
+        }
+        zipEntry.setSize(size);
+        zipEntry.setCompressedSize(size);
+        zipEntry.setCrc(crc.getValue());
+        zip.putNextEntry(zipEntry);
+        try (StorageObject object = storageService.openOriginalFile(prefetch.entry.path)) {
+            object.getInputStream().transferTo(zip);
+        }
+        zip.closeEntry();
+    }
+
+    private FetchedFile await(Prefetch prefetch) throws IOException {
+        try {
+            return prefetch.future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read " + prefetch.entry.name + " from storage", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + prefetch.entry.name);
+        }
+    }
+
+    private String uniqueName(Photo photo, Set<String> usedNames) {
+        String name = sanitize(photo.getOriginalFilename(), "photo-" + photo.getId() + ".jpg");
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; !usedNames.add(candidate.toLowerCase()); i++) {
+            candidate = base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+
+    private static String sanitize(String name, String fallback) {
+        if (name == null || name.isBlank()) {
+            return fallback;
+        }
+        return name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+    }
+
+    private static class ArchiveEntry {
+        final String name;
+        final String path;
+        final long size;
+
+        ArchiveEntry(String name, String path, long size) {
+            this.name = name;
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    private static class FetchedFile {
+        final byte[] data;
+        final long crc;
+
+        FetchedFile(byte[] data, long crc) {
+            this.data = data;
+            this.crc = crc;
+        }
+    }
+
+    private class Prefetch {
+        final ArchiveEntry entry;
+        final Future<FetchedFile> future; // null : photo écrite sans préchargement
+        private int permits;
+
+        Prefetch(ArchiveEntry entry, int permits, Future<FetchedFile> future) {
+            this.entry = entry;
+            this.permits = permits;
+            this.future = future;
+        }
+
+        void release() {
+            if (permits > 0) {
+                memoryBudget.release(permits);
+                permits = 0;
+            }
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(true);
+            }
+            release();
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package com.senalbum.photo;
 
+import com.senalbum.photo.dto.PhotoDeletionRequest;
+import com.senalbum.photo.dto.PhotoDeletionResponse;
 import com.senalbum.photo.dto.PhotoDownloadDTO;
 import com.senalbum.photo.dto.PhotoResponse;
+import com.senalbum.photo.dto.PreflightRequest;
+import com.senalbum.photo.dto.PreflightResponse;
+import com.senalbum.photo.dto.UploadUrlBatchRequest;
+import com.senalbum.photo.dto.UploadUrlBatchResponse;
 import com.senalbum.security.SecurityUtils;
+import com.senalbum.storage.StorageObject;
+import com.senalbum.storage.StorageResponses;
+import com.senalbum.storage.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,9 +36,15 @@ public class PhotoController {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private PhotoDeletionService photoDeletionService;
+
     @Autowired
     private SecurityUtils securityUtils;
 
+    @Autowired
+    private StorageService storageService;
+
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<PhotoResponse> uploadPhoto(
             @PathVariable UUID albumId,
@@ -45,40 +63,74 @@ public class PhotoController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/preflight")
+    public ResponseEntity<PreflightResponse> preflight(
+            @PathVariable UUID albumId,
+            @RequestBody PreflightRequest request) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(photoService.preflight(photographerId, albumId, request));
+    }
+
+    @PostMapping("/upload-urls")
+    public ResponseEntity<UploadUrlBatchResponse> issueUploadUrls(
+            @PathVariable UUID albumId,
+            @RequestBody UploadUrlBatchRequest request) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(photoService.issueUploadUrls(photographerId, albumId, request));
+    }
+
+    @PostMapping("/confirm-batch")
+    public ResponseEntity<List<PhotoResponse>> confirmUploads(
+            @PathVariable UUID albumId,
+            @RequestBody List<com.senalbum.photo.dto.ConfirmUploadRequest> requests) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        List<PhotoResponse> responses = photoService.confirmUploads(photographerId, albumId, requests);
+        return ResponseEntity.ok(responses);
+    }
+
     @GetMapping
-    public ResponseEntity<List<PhotoResponse>> getAlbumPhotos(@PathVariable UUID albumId) {
+    public ResponseEntity<List<PhotoResponse>> getAlbumPhotos(@PathVariable UUID albumId,
+            @RequestParam(required = false) String sort) {
         UUID photographerId = securityUtils.getCurrentPhotographerId();
-        List<PhotoResponse> photos = photoService.getPhotosForOwner(photographerId, albumId);
+        List<PhotoResponse> photos = photoService.getPhotosForOwner(photographerId, albumId, sort);
         return ResponseEntity.ok(photos);
     }
 
     @GetMapping("/{photoId}/preview")
-    public ResponseEntity<byte[]> getPreviewPhoto(@PathVariable UUID albumId, @PathVariable UUID photoId) {
+    public ResponseEntity<Resource> getPreviewPhoto(
+            @PathVariable UUID albumId,
+            @PathVariable UUID photoId,
+            @RequestParam(required = false) Integer width,
+            HttpServletRequest request,
+            WebRequest webRequest) {
         UUID photographerId = securityUtils.getCurrentPhotographerId();
-        byte[] imageBytes = photoService.getPreviewForOwner(photographerId, albumId, photoId);
+        String previewPath = photoService.getPreviewPathForOwner(photographerId, albumId, photoId, width);
+        String etag = StorageResponses.etag(previewPath);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, sans ouvrir le stockage
+        }
+        StorageObject preview = photoService.openPreview(previewPath);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_JPEG);
-        headers.setContentLength(imageBytes.length);
-
-        return ResponseEntity.ok()
+        // Content-Length est renseigné par le convertisseur à partir de la Resource
+        return StorageResponses.body(ResponseEntity.ok()
+                .eTag(etag)
                 .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400, mutable")
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE)
-                .contentLength(imageBytes.length)
-                .body(imageBytes);
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE), preview, request);
     }
 
     @GetMapping("/{photoId}/download")
-    public ResponseEntity<byte[]> downloadPhoto(@PathVariable UUID albumId, @PathVariable UUID photoId) {
+    public ResponseEntity<Resource> downloadPhoto(@PathVariable UUID albumId, @PathVariable UUID photoId,
+            HttpServletRequest request) throws IOException {
         UUID photographerId = securityUtils.getCurrentPhotographerId();
         PhotoDownloadDTO downloadDTO = photoService.getOriginalForOwner(photographerId, albumId, photoId);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", downloadDTO.getFilename());
-        headers.setContentLength(downloadDTO.getData().length);
 
-        return new ResponseEntity<>(downloadDTO.getData(), headers, HttpStatus.OK);
+        // Range / If-Range : reprise de téléchargement et téléchargements parallèles
+        return StorageResponses.download(headers, storageService, downloadDTO.getPath(), downloadDTO.getSize(),
+                request);
     }
 
     @DeleteMapping("/{photoId}")
@@ -87,4 +139,22 @@ public class PhotoController {
         photoService.deletePhoto(photographerId, albumId, photoId);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<PhotoDeletionResponse> deletePhotos(
+            @PathVariable UUID albumId,
+            @RequestBody PhotoDeletionRequest request) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        PhotoDeletionResponse response = photoDeletionService.deletePhotos(photographerId, albumId,
+                request.getPhotoIds());
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/deletions/{operationId}")
+    public ResponseEntity<PhotoDeletionResponse> getDeletion(
+            @PathVariable UUID albumId,
+            @PathVariable UUID operationId) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(photoDeletionService.getOperation(photographerId, albumId, operationId));
+    }
 }
@@ -0,0 +1,191 @@
+package com.senalbum.photo;
+
+import com.senalbum.album.Album;
+import com.senalbum.album.AlbumService;
+import com.senalbum.photo.dto.PhotoDeletionResponse;
+import com.senalbum.storage.ContentStore;
+import com.senalbum.storage.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suppression de photos par lots. Les lignes sont supprimées en une requête
+ * (transaction courte, sans appel au stockage) ; les fichiers sont ensuite
+ * supprimés en tâche de fond, par lots de clés, après le commit.
+ * Le client suit l'avancement avec l'identifiant d'opération renvoyé.
+ */
+@Service
+public class PhotoDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoDeletionService.class);
+
+    private static final int MAX_TRACKED_OPERATIONS = 1000;
+
+    @Autowired
+    private AlbumService albumService;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private PhotoRenditionRepository renditionRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Value("${app.photo.delete-batch-max:1000}")
+    private int deleteBatchMax;
+
+    private ExecutorService executor;
+
+    // Dernières opérations, pour le suivi (les plus anciennes sont oubliées)
+    private final Map<UUID, DeletionOperation> operations = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, DeletionOperation> eldest) {
+            return size() > MAX_TRACKED_OPERATIONS;
+        }
+    };
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "photo-delete-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    public PhotoDeletionResponse deletePhotos(UUID photographerId, UUID albumId, List<UUID> photoIds) {
+        Album album = albumService.getAlbumEntity(albumId);
+        if (!album.getPhotographer().getId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Album does not belong to photographer");
+        }
+        Set<UUID> ids = photoIds != null ? new LinkedHashSet<>(photoIds) : Set.of();
+        if (ids.size() > deleteBatchMax) {
+            throw new RuntimeException("Too many photos in one batch (max " + deleteBatchMax + ")");
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        int deleted = ids.isEmpty() ? 0 : transactionTemplate.execute(status -> {
+            // Seules les photos de cet album sont supprimées, les autres ids sont ignorés
+            // Lignes verrouillées : une suppression concurrente des mêmes photos ne les décompte pas deux fois
+            List<UUID> owned = new ArrayList<>();
+            long freedBytes = 0;
+            for (Photo photo : photoRepository.findForUpdateByAlbumIdAndIdIn(albumId, ids)) {
+                owned.add(photo.getId());
+                freedBytes += photo.getSize() != null ? photo.getSize() : 0L;
+                if (!photo.getPreviewPath().equals(photo.getOriginalPath())) {
+                    keys.add(photo.getPreviewPath());
+                }
+                // Un original partagé n'est supprimé qu'avec sa dernière référence
+                keys.add(photo.getContentHash() != null ? contentStore.release(photo.getOriginalPath())
+                        : photo.getOriginalPath());
+            }
+            if (owned.isEmpty()) {
+                return 0;
+            }
+            keys.addAll(renditionRepository.findStorageKeysByPhotoIds(owned));
+            renditionRepository.deleteByPhotoIds(owned);
+            int removed = photoRepository.deleteByAlbumIdAndIdIn(albumId, owned);
+            storageUsageService.removePhotos(photographerId, albumId, freedBytes, removed);
+            return removed;
+        });
+        keys.remove(null);
+
+        DeletionOperation operation = new DeletionOperation(photographerId, albumId, deleted, new ArrayList<>(keys));
+        synchronized (operations) {
+            operations.put(operation.id, operation);
+        }
+        if (!keys.isEmpty()) {
+            executor.submit(() -> deleteObjects(operation));
+        } else {
+            operation.status = "COMPLETED";
+        }
+        return operation.toResponse();
+    }
+
+    public PhotoDeletionResponse getOperation(UUID photographerId, UUID albumId, UUID operationId) {
+        DeletionOperation operation;
+        synchronized (operations) {
+            operation = operations.get(operationId);
+        }
+        if (operation == null || !operation.albumId.equals(albumId)) {
+            throw new RuntimeException("Deletion operation not found");
+        }
+        if (!operation.photographerId.equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Deletion operation does not belong to photographer");
+        }
+        return operation.toResponse();
+    }
+
+    private void deleteObjects(DeletionOperation operation) {
+        operation.status = "RUNNING";
+        try {
+            List<String> failed = storageService.deleteFiles(operation.keys);
+            operation.failedKeys = List.copyOf(failed);
+            if (!failed.isEmpty()) {
+                logger.warn("Failed to delete {} of {} storage objects for album {}", failed.size(),
+                        operation.keys.size(), operation.albumId);
+            }
+        } catch (Exception e) {
+            operation.failedKeys = List.copyOf(operation.keys);
+            logger.warn("Failed to delete storage objects for album {}: {}", operation.albumId, e.getMessage());
+        }
+        operation.status = "COMPLETED";
+    }
+
+    private static class DeletionOperation {
+        final UUID id = UUID.randomUUID();
+        final UUID photographerId;
+        final UUID albumId;
+        final int deletedPhotos;
+        final List<String> keys;
+        volatile String status = "PENDING";
+        volatile List<String> failedKeys = List.of();
+
+        DeletionOperation(UUID photographerId, UUID albumId, int deletedPhotos, List<String> keys) {
+            this.photographerId = photographerId;
+            this.albumId = albumId;
+            this.deletedPhotos = deletedPhotos;
+            this.keys = keys;
+        }
+
+        PhotoDeletionResponse toResponse() {
+            List<String> failed = failedKeys;
+            int deletedObjects = "COMPLETED".equals(status) ? keys.size() - failed.size() : 0;
+            return new PhotoDeletionResponse(id, status, deletedPhotos, keys.size(), deletedObjects, failed);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.senalbum.photo;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Métadonnées lues dans l'en-tête d'une image (dimensions, EXIF), sans la
+ * décoder, complétées par le worker avec l'aperçu BlurHash. Les champs
+ * absents du fichier restent null.
+ */
+@Data
+@NoArgsConstructor
+public class PhotoMetadata {
+
+    private Integer width; // En pixels stockés, avant application de l'orientation
+    private Integer height;
+    private Integer orientation; // Tag EXIF Orientation (1 à 8)
+    private LocalDateTime capturedAt; // EXIF DateTimeOriginal, heure locale de l'appareil
+    private String camera; // Marque et modèle de l'appareil
+    private String blurHash; // Calculé sur l'image décodée, pas dans l'en-tête
+
+    /**
+     * Reporte sur la photo les valeurs connues, sans effacer celles déjà
+     * renseignées
+     */
+    public void applyTo(Photo photo) {
+        if (width != null && height != null) {
+            photo.setWidth(width);
+            photo.setHeight(height);
+        }
+        if (orientation != null) {
+            photo.setOrientation(orientation);
+        }
+        if (capturedAt != null) {
+            photo.setCapturedAt(capturedAt);
+        }
+        if (camera != null) {
+            photo.setCamera(camera);
+        }
+        if (blurHash != null) {
+            photo.setBlurHash(blurHash);
+        }
+    }
+}
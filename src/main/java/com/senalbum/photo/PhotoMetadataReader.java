@@ -0,0 +1,248 @@
+package com.senalbum.photo;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+
+/**
+ * Lit dimensions, orientation, date de prise de vue et appareil dans les
+ * premiers octets d'une image. Pour un JPEG, les segments sont parcourus
+ * jusqu'au SOF (dimensions) en lisant l'APP1 Exif au passage ; pour les
+ * autres formats, seules les dimensions sont demandées au lecteur ImageIO,
+ * qui se contente de l'en-tête.
+ */
+@Component
+public class PhotoMetadataReader {
+
+    /**
+     * Nombre maximal d'octets lus en tête de fichier. Le segment Exif tient
+     * dans 64 Ko ; la marge couvre les profils ICC et vignettes qui le
+     * précèdent parfois.
+     */
+    public static final int HEADER_BYTES = 256 * 1024;
+
+    private static final int CAMERA_MAX_LENGTH = 128;
+
+    private static final DateTimeFormatter EXIF_DATE = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private static final int TAG_MAKE = 0x010F;
+    private static final int TAG_MODEL = 0x0110;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATE_TIME = 0x0132;
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+    private static final int TAG_DATE_TIME_DIGITIZED = 0x9004;
+
+    /**
+     * Lit au plus {@link #HEADER_BYTES} octets du flux, sans le fermer. Une
+     * image illisible donne des métadonnées vides plutôt qu'une erreur : elles
+     * ne sont pas nécessaires pour accepter la photo.
+     */
+    public PhotoMetadata read(InputStream source) {
+        PhotoMetadata metadata = new PhotoMetadata();
+        try {
+            byte[] header = source.readNBytes(HEADER_BYTES);
+            if (isJpeg(header)) {
+                readJpeg(header, metadata);
+            }
+            if (metadata.getWidth() == null) {
+                readDimensions(header, metadata);
+            }
+        } catch (IOException | RuntimeException e) {
+            // En-tête tronqué ou corrompu : on garde ce qui a pu être lu
+        }
+        return metadata;
+    }
+
+    private static boolean isJpeg(byte[] data) {
+        return data.length > 4 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8;
+    }
+
+    private void readJpeg(byte[] data, PhotoMetadata metadata) {
+        int pos = 2;
+        boolean exifRead = false;
+        while (pos + 4 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                return;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++; // Octet de bourrage
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                pos += 2; // Marqueurs sans longueur
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                return; // Fin d'image ou début des données compressées
+            }
+
+            int length = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            int body = pos + 4;
+            int end = pos + 2 + length;
+            if (length < 2) {
+                return;
+            }
+
+            if (marker == 0xE1 && !exifRead && end <= data.length && isExifHeader(data, body)) {
+                readTiff(ByteBuffer.wrap(data, body + 6, end - body - 6).slice(), metadata);
+                exifRead = true;
+            } else if (isStartOfFrame(marker) && body + 5 <= data.length) {
+                metadata.setHeight(((data[body + 1] & 0xFF) << 8) | (data[body + 2] & 0xFF));
+                metadata.setWidth(((data[body + 3] & 0xFF) << 8) | (data[body + 4] & 0xFF));
+                return;
+            }
+            pos = end;
+        }
+    }
+
+    private static boolean isExifHeader(byte[] data, int offset) {
+        return offset + 6 <= data.length && data[offset] == 'E' && data[offset + 1] == 'x'
+                && data[offset + 2] == 'i' && data[offset + 3] == 'f' && data[offset + 4] == 0
+                && data[offset + 5] == 0;
+    }
+
+    // SOF0 à SOF15, sauf DHT (C4), JPG (C8) et DAC (CC)
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * Parcourt l'IFD0 puis la sous-IFD Exif d'un bloc TIFF
+     */
+    private void readTiff(ByteBuffer tiff, PhotoMetadata metadata) {
+        if (tiff.remaining() < 8) {
+            return;
+        }
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) == 'M' && tiff.get(1) == 'M') {
+            tiff.order(ByteOrder.BIG_ENDIAN);
+        } else {
+            return;
+        }
+
+        String make = null;
+        String model = null;
+        String dateTime = null;
+        String dateTimeOriginal = null;
+        int exifOffset = -1;
+
+        int ifd = tiff.getInt(4);
+        int count = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            int tag = tiff.getShort(entry) & 0xFFFF;
+            if (tag == TAG_MAKE) {
+                make = asciiValue(tiff, entry);
+            } else if (tag == TAG_MODEL) {
+                model = asciiValue(tiff, entry);
+            } else if (tag == TAG_DATE_TIME) {
+                dateTime = asciiValue(tiff, entry);
+            } else if (tag == TAG_EXIF_IFD) {
+                exifOffset = tiff.getInt(entry + 8);
+            } else if (tag == TAG_ORIENTATION) {
+                int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                if (orientation >= 1 && orientation <= 8) {
+                    metadata.setOrientation(orientation);
+                }
+            }
+        }
+
+        if (exifOffset > 0 && exifOffset + 2 <= tiff.limit()) {
+            String digitized = null;
+            int exifCount = tiff.getShort(exifOffset) & 0xFFFF;
+            for (int i = 0; i < exifCount; i++) {
+                int entry = exifOffset + 2 + i * 12;
+                int tag = tiff.getShort(entry) & 0xFFFF;
+                if (tag == TAG_DATE_TIME_ORIGINAL) {
+                    dateTimeOriginal = asciiValue(tiff, entry);
+                } else if (tag == TAG_DATE_TIME_DIGITIZED) {
+                    digitized = asciiValue(tiff, entry);
+                }
+            }
+            if (dateTimeOriginal == null) {
+                dateTimeOriginal = digitized;
+            }
+        }
+
+        metadata.setCapturedAt(parseDate(dateTimeOriginal != null ? dateTimeOriginal : dateTime));
+        metadata.setCamera(camera(make, model));
+    }
+
+    private static String asciiValue(ByteBuffer tiff, int entry) {
+        int count = tiff.getInt(entry + 4);
+        if (count <= 0 || count > 1024) {
+            return null;
+        }
+        // Jusqu'à 4 octets, la valeur est dans l'entrée elle-même
+        int offset = count <= 4 ? entry + 8 : tiff.getInt(entry + 8);
+        if (offset < 0 || offset + count > tiff.limit()) {
+            return null;
+        }
+        byte[] bytes = new byte[count];
+        tiff.get(offset, bytes);
+        int length = 0;
+        while (length < count && bytes[length] != 0) {
+            length++;
+        }
+        String value = new String(bytes, 0, length, StandardCharsets.US_ASCII).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, EXIF_DATE);
+        } catch (DateTimeParseException e) {
+            return null; // Souvent "0000:00:00 00:00:00" quand l'horloge n'est pas réglée
+        }
+    }
+
+    private static String camera(String make, String model) {
+        String camera;
+        if (model == null) {
+            camera = make;
+        } else if (make == null || model.toLowerCase().startsWith(make.toLowerCase())) {
+            camera = model;
+        } else {
+            camera = make + " " + model;
+        }
+        if (camera != null && camera.length() > CAMERA_MAX_LENGTH) {
+            camera = camera.substring(0, CAMERA_MAX_LENGTH);
+        }
+        return camera;
+    }
+
+    private void readDimensions(byte[] header, PhotoMetadata metadata) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(header))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                metadata.setWidth(reader.getWidth(0));
+                metadata.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
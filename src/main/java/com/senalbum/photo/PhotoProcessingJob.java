@@ -0,0 +1,59 @@
+package com.senalbum.photo;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tâche persistée de génération des dérivés d'une photo.
+ * Stockée en base pour survivre aux redémarrages du serveur.
+ */
+@Entity
+@Table(name = "photo_processing_jobs", indexes = @Index(name = "idx_photo_processing_jobs_status", columnList = "status, available_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoProcessingJob {
+
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "photo_id", nullable = false)
+    private UUID photoId; // Pas de clé étrangère : la photo peut être supprimée avant traitement
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.senalbum.photo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PhotoProcessingJobRepository extends JpaRepository<PhotoProcessingJob, UUID> {
+
+    // SKIP LOCKED : plusieurs instances peuvent se partager la file sans se bloquer
+    @Query(value = "SELECT * FROM photo_processing_jobs WHERE status = 'PENDING' AND available_at <= :now "
+            + "ORDER BY available_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PhotoProcessingJob> lockNextPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Tâches restées RUNNING après un arrêt brutal du worker
+    @Modifying
+    @Query(value = "UPDATE photo_processing_jobs SET status = 'PENDING', locked_at = NULL "
+            + "WHERE status = 'RUNNING' AND locked_at < :threshold", nativeQuery = true)
+    int releaseStale(@Param("threshold") LocalDateTime threshold);
+
+    @Modifying
+    @Query(value = "DELETE FROM photo_processing_jobs WHERE status = 'DONE'", nativeQuery = true)
+    int deleteDone();
+}
@@ -0,0 +1,300 @@
+package com.senalbum.photo;
+
+import com.senalbum.album.Album;
+import com.senalbum.photographer.Photographer;
+import com.senalbum.photographer.SubscriptionPlan;
+import com.senalbum.storage.PreviewRenderer;
+import com.senalbum.storage.StorageObject;
+import com.senalbum.storage.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Génération asynchrone des déclinaisons (vignette, grille, écran...) de
+ * chaque photo : l'upload ou la confirmation met une tâche en file, un worker
+ * la traite ensuite
+ */
+@Service
+public class PhotoProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoProcessingService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    @Autowired
+    private PhotoProcessingJobRepository jobRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private PreviewRenderer previewRenderer;
+
+    @Autowired
+    private PhotoMetadataReader metadataReader;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.processing.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    @Value("${app.renditions.widths:256,640,1200,2048}")
+    private List<Integer> renditionWidths;
+
+    @Value("${app.renditions.preview-width:1200}")
+    private int previewWidth;
+
+    /**
+     * Met une photo déjà persistée en file d'attente, dans la transaction de
+     * l'appelant : la tâche n'existe que si la photo est bien enregistrée.
+     * L'appelant passe la photo en PENDING si elle n'a pas encore de preview.
+     */
+    public void enqueue(Photo photo) {
+        PhotoProcessingJob job = new PhotoProcessingJob();
+        job.setPhotoId(photo.getId());
+        jobRepository.save(job);
+    }
+
+    public void enqueueAll(List<Photo> photos) {
+        List<PhotoProcessingJob> jobs = new ArrayList<>();
+        for (Photo photo : photos) {
+            PhotoProcessingJob job = new PhotoProcessingJob();
+            job.setPhotoId(photo.getId());
+            jobs.add(job);
+        }
+        jobRepository.saveAll(jobs);
+    }
+
+    /**
+     * Réserve jusqu'à {@code limit} tâches disponibles pour ce worker
+     */
+    @Transactional
+    public List<PhotoProcessingJob> claim(int limit) {
+        List<PhotoProcessingJob> jobs = jobRepository.lockNextPending(LocalDateTime.now(), limit);
+        LocalDateTime now = LocalDateTime.now();
+        for (PhotoProcessingJob job : jobs) {
+            job.setStatus(PhotoProcessingJob.Status.RUNNING);
+            job.setLockedAt(now);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return jobs;
+    }
+
+    @Transactional
+    public int releaseStaleJobs(LocalDateTime threshold) {
+        // Tâches DONE laissées par les versions qui ne supprimaient pas les tâches terminées
+        jobRepository.deleteDone();
+        return jobRepository.releaseStale(threshold);
+    }
+
+    public void process(PhotoProcessingJob job) {
+        Photo photo = photoRepository.findWithAlbumById(job.getPhotoId()).orElse(null);
+        if (photo == null) {
+            // Photo supprimée entre-temps : rien à générer
+            deleteJob(job.getId());
+            return;
+        }
+
+        List<PhotoRendition> generated = new ArrayList<>();
+        try {
+            if (photo.getProcessingStatus() != PhotoProcessingStatus.READY) {
+                setPhotoStatus(photo.getId(), PhotoProcessingStatus.PROCESSING);
+            }
+            PhotoMetadata metadata = generateRenditions(photo, generated);
+
+            List<String> replacedPaths = transactionTemplate
+                    .execute(status -> applyRenditions(job.getId(), photo.getId(), generated, metadata));
+            if (replacedPaths != null) {
+                replacedPaths.forEach(this::deleteQuietly);
+            }
+        } catch (Exception e) {
+            logger.warn("Preview generation failed for photo {} (attempt {}): {}", photo.getId(), job.getAttempts(),
+                    e.getMessage());
+            generated.forEach(rendition -> deleteQuietly(rendition.getStorageKey()));
+            fail(job, photo.getId(), e);
+        }
+    }
+
+    /**
+     * Génère toute l'échelle de déclinaisons à partir d'un seul décodage de
+     * l'original. Chaque fichier envoyé est ajouté à {@code generated} au fil de
+     * l'eau pour pouvoir être nettoyé en cas d'échec.
+     *
+     * @return Les métadonnées lues dans l'en-tête de l'original au passage,
+     *         avec l'aperçu BlurHash
+     */
+    private PhotoMetadata generateRenditions(Photo photo, List<PhotoRendition> generated) throws Exception {
+        Album album = photo.getAlbum();
+        Photographer photographer = album.getPhotographer();
+        SubscriptionPlan plan = photographer.getSubscriptionPlan();
+
+        // Mêmes règles de marque que l'upload classique
+        boolean applyWatermark = Boolean.TRUE.equals(photographer.getWatermarkEnabled()) && plan.isCustomBranding();
+        String brandName = plan.isCustomBranding() ? photographer.getBrandName() : null;
+
+        // Décodage sous-échantillonné à la plus grande déclinaison demandée
+        int maxWidth = renditionWidths.isEmpty() ? previewWidth : Collections.max(renditionWidths);
+        // L'en-tête est lu une fois pour les métadonnées, puis relu par le décodeur
+        BufferedImage source;
+        PhotoMetadata metadata;
+        try (StorageObject original = storageService.openOriginalFile(photo.getOriginalPath())) {
+            InputStream in = new BufferedInputStream(original.getInputStream());
+            in.mark(PhotoMetadataReader.HEADER_BYTES + 1);
+            metadata = metadataReader.read(in);
+            in.reset();
+            source = previewRenderer.decode(in, maxWidth);
+        }
+        metadata.setBlurHash(BlurHash.encode(source));
+
+        String filename = photo.getOriginalFilename() != null ? photo.getOriginalFilename()
+                : "photo-" + photo.getId() + ".jpg";
+
+        // Pas d'agrandissement : les largeurs supérieures à l'original sont ramenées à
+        // sa largeur, puis dédoublonnées
+        Set<Integer> widths = new TreeSet<>();
+        for (Integer width : renditionWidths) {
+            widths.add(Math.min(width, source.getWidth()));
+        }
+        if (widths.isEmpty()) {
+            widths.add(Math.min(previewWidth, source.getWidth()));
+        }
+
+        for (int width : widths) {
+            PreviewRenderer.RenderedPreview rendered = previewRenderer.render(source, width, applyWatermark,
+                    brandName);
+            String key = storageService.saveContent("previews/" + album.getId(), width + "w-" + filename,
+                    new ByteArrayInputStream(rendered.getData()), rendered.getData().length,
+                    PreviewRenderer.PREVIEW_CONTENT_TYPE);
+
+            PhotoRendition rendition = new PhotoRendition();
+            rendition.setWidth(rendered.getWidth());
+            rendition.setHeight(rendered.getHeight());
+            rendition.setStorageKey(key);
+            rendition.setSizeBytes((long) rendered.getData().length);
+            generated.add(rendition);
+        }
+        return metadata;
+    }
+
+    /**
+     * Remplace les déclinaisons de la photo et pointe la preview sur la
+     * déclinaison "écran"
+     *
+     * @return Les fichiers devenus inutiles (anciennes déclinaisons, ou les
+     *         nouvelles si la photo a disparu entre-temps)
+     */
+    private List<String> applyRenditions(UUID jobId, UUID photoId, List<PhotoRendition> generated,
+            PhotoMetadata metadata) {
+        // Tâche terminée : supprimée plutôt que gardée en DONE (la table ne grossit pas)
+        jobRepository.findById(jobId).ifPresent(jobRepository::delete);
+
+        List<String> obsolete = new ArrayList<>();
+        Photo photo = photoRepository.findById(photoId).orElse(null);
+        if (photo == null) {
+            generated.forEach(rendition -> obsolete.add(rendition.getStorageKey()));
+            return obsolete;
+        }
+
+        Set<String> previousKeys = new HashSet<>();
+        for (PhotoRendition previous : photo.getRenditions()) {
+            previousKeys.add(previous.getStorageKey());
+        }
+        obsolete.addAll(previousKeys);
+        if (photo.getPreviewPath() != null && !photo.getPreviewPath().equals(photo.getOriginalPath())
+                && !previousKeys.contains(photo.getPreviewPath())) {
+            obsolete.add(photo.getPreviewPath());
+        }
+
+        photo.getRenditions().clear();
+        for (PhotoRendition rendition : generated) {
+            rendition.setPhoto(photo);
+            photo.getRenditions().add(rendition);
+        }
+
+        // Uploads présignés : les métadonnées ne sont connues qu'ici
+        metadata.applyTo(photo);
+        photo.setPreviewPath(selectPreview(generated).getStorageKey());
+        photo.setProcessingStatus(PhotoProcessingStatus.READY);
+        return obsolete;
+    }
+
+    /**
+     * La preview historique correspond à la plus grande déclinaison qui ne
+     * dépasse pas la largeur de preview
+     */
+    private PhotoRendition selectPreview(List<PhotoRendition> renditions) {
+        PhotoRendition selected = renditions.get(0);
+        for (PhotoRendition rendition : renditions) {
+            if (rendition.getWidth() <= previewWidth) {
+                selected = rendition;
+            }
+        }
+        return selected;
+    }
+
+    private void fail(PhotoProcessingJob job, UUID photoId, Exception error) {
+        transactionTemplate.executeWithoutResult(status -> jobRepository.findById(job.getId()).ifPresent(j -> {
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+            j.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            j.setLockedAt(null);
+
+            PhotoProcessingStatus photoStatus;
+            if (j.getAttempts() >= maxAttempts) {
+                j.setStatus(PhotoProcessingJob.Status.FAILED);
+                photoStatus = PhotoProcessingStatus.FAILED;
+            } else {
+                // Backoff exponentiel : 30s, 1min, 2min...
+                long delay = retryDelaySeconds << Math.min(j.getAttempts() - 1, 10);
+                j.setStatus(PhotoProcessingJob.Status.PENDING);
+                j.setAvailableAt(LocalDateTime.now().plusSeconds(delay));
+                photoStatus = PhotoProcessingStatus.PENDING;
+            }
+
+            // Une photo qui a déjà sa preview reste affichable malgré l'échec des déclinaisons
+            photoRepository.findById(photoId)
+                    .filter(photo -> photo.getProcessingStatus() != PhotoProcessingStatus.READY)
+                    .ifPresent(photo -> photo.setProcessingStatus(photoStatus));
+        }));
+    }
+
+    private void deleteJob(UUID jobId) {
+        transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId).ifPresent(jobRepository::delete));
+    }
+
+    private void setPhotoStatus(UUID photoId, PhotoProcessingStatus status) {
+        transactionTemplate.executeWithoutResult(tx -> photoRepository.updateProcessingStatus(photoId, status));
+    }
+
+    private void deleteQuietly(String path) {
+        try {
+            storageService.deleteFile(path);
+        } catch (Exception e) {
+            logger.warn("Failed to delete preview {}: {}", path, e.getMessage());
+        }
+    }
+}
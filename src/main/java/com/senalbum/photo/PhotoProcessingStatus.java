@@ -0,0 +1,11 @@
+package com.senalbum.photo;
+
+/**
+ * État de génération des dérivés (preview) d'une photo
+ */
+public enum PhotoProcessingStatus {
+    PENDING, // En attente d'un worker
+    PROCESSING, // Preview en cours de génération
+    READY, // Preview disponible
+    FAILED // Échec définitif, la preview pointe sur l'original
+}
@@ -0,0 +1,93 @@
+package com.senalbum.photo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool borné de workers qui dépile les tâches de génération de previews.
+ * On ne réserve jamais plus de tâches que de workers libres : le reste attend
+ * en base, où n'importe quelle instance peut le reprendre.
+ */
+@Component
+public class PhotoProcessingWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoProcessingWorker.class);
+
+    @Autowired
+    private PhotoProcessingService processingService;
+
+    @Value("${app.processing.workers:2}")
+    private int workers;
+
+    @Value("${app.processing.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "photo-processing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.processing.poll-interval-ms:2000}")
+    public void poll() {
+        int free = workers - inFlight.get();
+        if (free <= 0 || executor.isShutdown()) {
+            return;
+        }
+
+        List<PhotoProcessingJob> jobs;
+        try {
+            jobs = processingService.claim(free);
+        } catch (Exception e) {
+            logger.warn("Failed to claim processing jobs: {}", e.getMessage());
+            return;
+        }
+
+        for (PhotoProcessingJob job : jobs) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    processingService.process(job);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStaleJobs() {
+        int released = processingService.releaseStaleJobs(LocalDateTime.now().minusMinutes(staleAfterMinutes));
+        if (released > 0) {
+            logger.info("Released {} stale processing jobs", released);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Les tâches interrompues restent RUNNING et seront relâchées au prochain démarrage
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
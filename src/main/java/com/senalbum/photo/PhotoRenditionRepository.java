@@ -0,0 +1,29 @@
+package com.senalbum.photo;
+
+import com.senalbum.album.Album;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PhotoRenditionRepository extends JpaRepository<PhotoRendition, UUID> {
+
+    // Toutes les déclinaisons d'un album en une requête (évite le N+1 sur les listings)
+    @Query("SELECT r FROM PhotoRendition r WHERE r.photo.album = :album ORDER BY r.width ASC")
+    List<PhotoRendition> findByAlbum(@Param("album") Album album);
+
+    List<PhotoRendition> findByPhotoOrderByWidthAsc(Photo photo);
+
+    @Query("SELECT r.storageKey FROM PhotoRendition r WHERE r.photo.id IN :photoIds")
+    List<String> findStorageKeysByPhotoIds(@Param("photoIds") Collection<UUID> photoIds);
+
+    @Modifying
+    @Query("DELETE FROM PhotoRendition r WHERE r.photo.id IN :photoIds")
+    int deleteByPhotoIds(@Param("photoIds") Collection<UUID> photoIds);
+}
@@ -1,24 +1,47 @@
 package com.senalbum.photo;
 
 import com.senalbum.album.Album;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface PhotoRepository extends JpaRepository<Photo, UUID> {
     List<Photo> findByAlbumOrderByCreatedAtAsc(Album album);
 
+    // Index (album_id, captured_at) ; sans date de prise de vue en dernier (NULLS LAST par défaut)
+    List<Photo> findByAlbumOrderByCapturedAtAscCreatedAtAsc(Album album);
+
+    @Query("SELECT p FROM Photo p JOIN FETCH p.album a JOIN FETCH a.photographer WHERE p.id = :id")
+    Optional<Photo> findWithAlbumById(@Param("id") UUID id);
+
     void deleteByAlbum(Album album);
 
-    @Query("SELECT COALESCE(SUM(p.size), 0) FROM Photo p WHERE p.album.id IN (SELECT a.id FROM Album a WHERE a.photographer.id = :photographerId)")
-    Long getTotalSize(@Param("photographerId") UUID photographerId);
+    // Par id d'album, sans jointure : fonctionne aussi pour un album supprimé
+    List<Photo> findByAlbumId(UUID albumId, Pageable pageable);
+
+    @Query("SELECT p FROM Photo p WHERE p.album.id = :albumId AND p.id IN :ids")
+    List<Photo> findByAlbumIdAndIdIn(@Param("albumId") UUID albumId, @Param("ids") Collection<UUID> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Photo p WHERE p.album.id = :albumId AND p.id IN :ids")
+    List<Photo> findForUpdateByAlbumIdAndIdIn(@Param("albumId") UUID albumId, @Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("DELETE FROM Photo p WHERE p.album.id = :albumId AND p.id IN :ids")
+    int deleteByAlbumIdAndIdIn(@Param("albumId") UUID albumId, @Param("ids") Collection<UUID> ids);
 
-    // Admin global statistics
-    @Query("SELECT COALESCE(SUM(p.size), 0) FROM Photo p")
-    Long getGlobalTotalSize();
+    @Modifying
+    @Query("UPDATE Photo p SET p.processingStatus = :status WHERE p.id = :id")
+    int updateProcessingStatus(@Param("id") UUID id, @Param("status") PhotoProcessingStatus status);
 }
@@ -3,15 +3,47 @@ package com.senalbum.photo;
 import com.senalbum.album.Album;
 import com.senalbum.album.AlbumService;
 import com.senalbum.photo.dto.PhotoDownloadDTO;
+import com.senalbum.photo.dto.PhotoRenditionResponse;
 import com.senalbum.photo.dto.PhotoResponse;
+import com.senalbum.photo.dto.PreflightRequest;
+import com.senalbum.photo.dto.PreflightResponse;
+import com.senalbum.photo.dto.UploadUrlBatchRequest;
+import com.senalbum.photo.dto.UploadUrlBatchResponse;
+import com.senalbum.storage.ContentBlob;
+import com.senalbum.storage.ContentStore;
+import com.senalbum.storage.PresignedPostPolicy;
+import com.senalbum.storage.StorageObject;
 import com.senalbum.storage.StorageService;
+import com.senalbum.storage.dto.PresignedPostResponse;
+import com.senalbum.storage.dto.PresignedUploadRequest;
+import com.senalbum.storage.dto.PresignedUploadResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +52,8 @@ import java.util.stream.Collectors;
 @Service
 public class PhotoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PhotoService.class);
+
     @Autowired
     private PhotoRepository photoRepository;
 
@@ -29,6 +63,62 @@ public class PhotoService {
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private PhotoProcessingService processingService;
+
+    @Autowired
+    private PhotoRenditionRepository renditionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private PhotoMetadataReader metadataReader;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Value("${app.upload.confirm-batch-max:1000}")
+    private int confirmBatchMax;
+
+    @Value("${app.upload.verify-concurrency:16}")
+    private int verifyConcurrency;
+
+    @Value("${app.upload.allowed-content-types:image/jpeg,image/png,image/webp,image/heic,image/heif}")
+    private Set<String> allowedContentTypes;
+
+    @Value("${app.upload.max-file-bytes:104857600}")
+    private long maxUploadBytes;
+
+    @Value("${app.upload.url-validity-seconds:3600}")
+    private long uploadUrlValiditySeconds;
+
+    @Value("${app.storage.type:wasabi}")
+    private String storageType;
+
+    @Autowired
+    private PresignedPostPolicy presignedPostPolicy;
+
+    private ExecutorService verificationExecutor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        verificationExecutor = Executors.newFixedThreadPool(verifyConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "upload-verify-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        verificationExecutor.shutdownNow();
+    }
+
     @Transactional
     public PhotoResponse uploadPhoto(UUID photographerId, UUID albumId, MultipartFile file) {
         // Vérifier que l'album appartient au photographe
@@ -37,103 +127,354 @@ public class PhotoService {
             throw new RuntimeException("Unauthorized: Album does not belong to photographer");
         }
 
-        long currentSize = photoRepository.getTotalSize(photographerId) != null
-                ? photoRepository.getTotalSize(photographerId)
-                : 0L;
-
-        com.senalbum.photographer.SubscriptionPlan plan = album.getPhotographer().getSubscriptionPlan();
-        long storageLimit = plan.getMaxStorageBytes();
-
-        if (currentSize + file.getSize() > storageLimit) {
-            String limitLabel = (storageLimit / (1024 * 1024)) + " Mo";
-            if (storageLimit >= 1024 * 1024 * 1024) {
-                limitLabel = (storageLimit / (1024 * 1024 * 1024)) + " Go";
-            }
-            throw new RuntimeException(
-                    "Espace insuffisant : Votre limite de stockage (" + limitLabel + ") est atteinte.");
-        }
+        checkStorageQuota(album, file.getSize());
 
         try {
-            // Sauvegarder les fichiers
-            String originalPath = storageService.saveOriginal(file, albumId.toString());
-            boolean applyWatermark = Boolean.TRUE.equals(album.getPhotographer().getWatermarkEnabled())
-                    && plan.isCustomBranding();
-            String brandName = plan.isCustomBranding() ? album.getPhotographer().getBrandName() : null;
-
-            String previewPath = storageService.savePreview(
-                    file,
-                    albumId.toString(),
-                    applyWatermark,
-                    brandName);
-
-            // Créer l'entité Photo
+            // Sauvegarder les fichiers (l'original une seule fois par contenu si la déduplication est active)
+            String originalPath;
+            String contentHash = null;
+            if (contentStore.isEnabled()) {
+                ContentBlob blob = contentStore.storeOriginal(photographerId, file);
+                originalPath = blob.getStorageKey();
+                contentHash = blob.getContentHash();
+            } else {
+                originalPath = storageService.saveOriginal(file, albumId.toString());
+            }
+            // Créer l'entité Photo. Comme pour un upload présigné, la preview
+            // (avec filigrane) est rendue par le worker avec les autres
+            // déclinaisons : un seul décodage, aucun fichier rendu puis jeté
             Photo photo = new Photo();
             photo.setAlbum(album);
             photo.setOriginalPath(originalPath);
             photo.setOriginalFilename(file.getOriginalFilename());
-            photo.setPreviewPath(previewPath);
+            photo.setPreviewPath(originalPath);
+            photo.setProcessingStatus(PhotoProcessingStatus.PENDING);
             photo.setSize(file.getSize());
+            photo.setContentHash(contentHash);
+            try (InputStream header = file.getInputStream()) {
+                metadataReader.read(header).applyTo(photo);
+            }
 
             photo = photoRepository.save(photo);
+            storageUsageService.addPhotos(album, photo.getSize(), 1);
+
+            processingService.enqueue(photo);
 
-            return toResponse(photo, album.getToken());
+            return toResponse(photo, album.getToken(), List.of(), presignedUrls(List.of(photo), Map.of()));
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload photo: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Confirme un upload présigné : les clés envoyées par le client doivent
+     * appartenir aux dossiers de l'album
+     */
     @Transactional
     public PhotoResponse confirmUpload(UUID photographerId, UUID albumId,
             com.senalbum.photo.dto.ConfirmUploadRequest request) {
+        if (request.getOriginalKey() != null || request.getContentHash() == null) {
+            checkUploadKey(request.getOriginalKey(), albumId, "albums/");
+        }
+        if (request.getPreviewKey() != null) {
+            checkUploadKey(request.getPreviewKey(), albumId, "previews/", "albums/");
+        }
+        return confirm(photographerId, albumId, request);
+    }
+
+    /**
+     * Confirme un upload reprenable assemblé par le serveur : la clé vient du
+     * stockage lui-même (sa forme dépend du backend) et n'est pas revérifiée
+     */
+    @Transactional
+    public PhotoResponse confirmAssembledUpload(UUID photographerId, UUID albumId,
+            com.senalbum.photo.dto.ConfirmUploadRequest request) {
+        return confirm(photographerId, albumId, request);
+    }
+
+    private PhotoResponse confirm(UUID photographerId, UUID albumId,
+            com.senalbum.photo.dto.ConfirmUploadRequest request) {
         Album album = albumService.getAlbumEntity(albumId);
         if (!album.getPhotographer().getId().equals(photographerId)) {
             throw new RuntimeException("Unauthorized: Album does not belong to photographer");
         }
 
-        long currentSize = photoRepository.getTotalSize(photographerId) != null
-                ? photoRepository.getTotalSize(photographerId)
-                : 0L;
-
-        com.senalbum.photographer.SubscriptionPlan plan = album.getPhotographer().getSubscriptionPlan();
-        long storageLimit = plan.getMaxStorageBytes();
-
-        if (currentSize + request.getSize() > storageLimit) {
-            String limitLabel = (storageLimit / (1024 * 1024)) + " Mo";
-            if (storageLimit >= 1024 * 1024 * 1024) {
-                limitLabel = (storageLimit / (1024 * 1024 * 1024)) + " Go";
+        String originalKey = request.getOriginalKey();
+        long size;
+        String contentHash = null;
+        if (originalKey == null && request.getContentHash() != null) {
+            // Contenu déjà stocké (voir preflight) : une référence de plus, sans upload
+            if (!contentStore.isEnabled() || !ContentStore.isValidHash(request.getContentHash())) {
+                throw new RuntimeException("Invalid content hash");
+            }
+            ContentBlob blob = contentStore.acquire(photographerId, request.getContentHash());
+            if (blob == null) {
+                throw new RuntimeException("Content not found, the file must be uploaded");
+            }
+            originalKey = blob.getStorageKey();
+            size = blob.getSizeBytes();
+            contentHash = blob.getContentHash();
+        } else {
+            if (request.getSize() == null) {
+                throw new RuntimeException("File size is required");
+            }
+            // Taille relue sur le stockage : elle sert au quota et aux plages des téléchargements
+            size = verifySize(originalKey);
+            if (size != request.getSize()) {
+                throw new RuntimeException("Uploaded file size mismatch: " + originalKey);
             }
-            throw new RuntimeException(
-                    "Espace insuffisant : Votre limite de stockage (" + limitLabel + ") est atteinte.");
         }
 
+        // Quota vérifié et réservé en un seul UPDATE, dans la transaction de l'insertion
+        storageUsageService.addPhotos(album, size, 1);
+
         Photo photo = new Photo();
         photo.setAlbum(album);
-        photo.setOriginalPath(request.getOriginalKey());
+        photo.setOriginalPath(originalKey);
         photo.setOriginalFilename(request.getFilename());
-        // If previewKey is null, fallback to originalKey (assuming frontend verified it
-        // or client handles large images)
-        photo.setPreviewPath(request.getPreviewKey() != null ? request.getPreviewKey() : request.getOriginalKey());
-        photo.setSize(request.getSize());
+        // If previewKey is null, the original is shown until the worker has
+        // generated the preview
+        photo.setPreviewPath(request.getPreviewKey() != null ? request.getPreviewKey() : originalKey);
+        photo.setSize(size);
+        photo.setContentHash(contentHash);
+
+        if (request.getPreviewKey() == null) {
+            photo.setProcessingStatus(PhotoProcessingStatus.PENDING);
+        }
 
         photo = photoRepository.save(photo);
+        processingService.enqueue(photo);
+
+        return toOwnerResponse(photo, List.of(), presignedUrls(List.of(photo), Map.of()));
+    }
+
+    /**
+     * Indique, parmi les empreintes SHA-256 proposées, les contenus que le
+     * photographe a déjà stockés : le client les confirme par contentHash
+     * sans renvoyer les octets
+     */
+    public PreflightResponse preflight(UUID photographerId, UUID albumId, PreflightRequest request) {
+        Album album = albumService.getAlbumEntity(albumId);
+        if (!album.getPhotographer().getId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Album does not belong to photographer");
+        }
+        if (!contentStore.isEnabled()) {
+            return new PreflightResponse(false, List.of());
+        }
+        List<String> hashes = request.getHashes() != null ? request.getHashes() : List.of();
+        if (hashes.size() > confirmBatchMax) {
+            throw new RuntimeException("Too many photos in one batch (max " + confirmBatchMax + ")");
+        }
+        Set<String> valid = hashes.stream()
+                .map(String::toLowerCase)
+                .filter(ContentStore::isValidHash)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> stored = contentStore.findStored(photographerId, valid);
+        return new PreflightResponse(true, valid.stream().filter(stored::contains).collect(Collectors.toList()));
+    }
+
+    /**
+     * Signe en une fois les URLs d'upload de plusieurs fichiers d'un album.
+     * Les clés sont placées sous albums/{albumId}/ ; avec postPolicy, une
+     * policy de POST couvrant tout ce préfixe est jointe à la réponse.
+     */
+    public UploadUrlBatchResponse issueUploadUrls(UUID photographerId, UUID albumId, UploadUrlBatchRequest request) {
+        Album album = albumService.getAlbumEntity(albumId);
+        if (!album.getPhotographer().getId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Album does not belong to photographer");
+        }
+        List<PresignedUploadRequest> files = request.getFiles() != null ? request.getFiles() : List.of();
+        if (files.size() > confirmBatchMax) {
+            throw new RuntimeException("Too many photos in one batch (max " + confirmBatchMax + ")");
+        }
+
+        String prefix = "albums/" + albumId + "/";
+        List<PresignedUploadResponse> uploads = new ArrayList<>();
+        for (PresignedUploadRequest file : files) {
+            String contentType = file.getContentType() != null ? file.getContentType().toLowerCase() : null;
+            if (contentType == null || !allowedContentTypes.contains(contentType)) {
+                throw new RuntimeException("Unsupported content type: " + file.getContentType());
+            }
+            String key = prefix + UUID.randomUUID() + "-" + sanitizeFilename(file.getFilename());
+            uploads.add(new PresignedUploadResponse(storageService.generatePresignedUploadUrl(key, contentType), key));
+        }
+
+        PresignedPostResponse postPolicy = null;
+        if (request.isPostPolicy()) {
+            if (!"wasabi".equalsIgnoreCase(storageType)) {
+                throw new RuntimeException("Presigned POST requires Wasabi storage");
+            }
+            postPolicy = presignedPostPolicy.create(prefix, "image/", maxUploadBytes, uploadUrlValiditySeconds);
+        }
+        return new UploadUrlBatchResponse(uploads, postPolicy);
+    }
+
+    private static String sanitizeFilename(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "photo";
+        }
+        return filename.replaceAll("[\\\\/\\p{Cntrl}]", "_");
+    }
+
+    /**
+     * Confirme en une fois une série d'uploads présignés. La taille de chaque
+     * fichier est relue sur le stockage (requêtes HEAD en parallèle) au lieu
+     * de croire celle envoyée par le client ; le quota est vérifié une seule
+     * fois pour le lot et les photos sont insérées par lots JDBC.
+     * Le lot est refusé en entier si un fichier manque.
+     */
+    public List<PhotoResponse> confirmUploads(UUID photographerId, UUID albumId,
+            List<com.senalbum.photo.dto.ConfirmUploadRequest> requests) {
+        Album album = albumService.getAlbumEntity(albumId);
+        if (!album.getPhotographer().getId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Album does not belong to photographer");
+        }
+        if (requests == null || requests.isEmpty()) {
+            return List.of();
+        }
+        if (requests.size() > confirmBatchMax) {
+            throw new RuntimeException("Too many photos in one batch (max " + confirmBatchMax + ")");
+        }
+
+        // Seules les clés de l'album peuvent être rattachées à ses photos
+        Set<String> keys = new HashSet<>();
+        for (com.senalbum.photo.dto.ConfirmUploadRequest request : requests) {
+            String key = request.getOriginalKey();
+            checkUploadKey(key, albumId, "albums/");
+            if (!keys.add(key)) {
+                throw new RuntimeException("Invalid upload key: " + key);
+            }
+            if (request.getPreviewKey() != null) {
+                checkUploadKey(request.getPreviewKey(), albumId, "previews/", "albums/");
+            }
+        }
+
+        List<Long> sizes = verifySizes(requests);
+        long totalSize = sizes.stream().mapToLong(Long::longValue).sum();
+
+        List<Photo> photos = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            com.senalbum.photo.dto.ConfirmUploadRequest request = requests.get(i);
+            Photo photo = new Photo();
+            photo.setAlbum(album);
+            photo.setOriginalPath(request.getOriginalKey());
+            photo.setOriginalFilename(request.getFilename());
+            photo.setPreviewPath(request.getPreviewKey() != null ? request.getPreviewKey() : request.getOriginalKey());
+            photo.setSize(sizes.get(i));
+            if (request.getPreviewKey() == null) {
+                photo.setProcessingStatus(PhotoProcessingStatus.PENDING);
+            }
+            photos.add(photo);
+        }
+
+        List<Photo> saved = transactionTemplate.execute(status -> {
+            storageUsageService.addPhotos(album, totalSize, photos.size());
+            List<Photo> result = photoRepository.saveAll(photos);
+            processingService.enqueueAll(result);
+            return result;
+        });
+
+        Map<String, String> urls = presignedUrls(saved, Map.of());
+        return saved.stream()
+                .map(photo -> toOwnerResponse(photo, List.of(), urls))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Refuse une clé envoyée par le client hors des dossiers de l'album :
+     * sinon une photo pourrait désigner (puis supprimer) le fichier d'un autre
+     * photographe, un contenu partagé ou un logo
+     */
+    private static void checkUploadKey(String key, UUID albumId, String... folders) {
+        if (key != null && !key.contains("..")) {
+            for (String folder : folders) {
+                if (key.startsWith(folder + albumId + "/")) {
+                    return;
+                }
+            }
+        }
+        throw new RuntimeException("Invalid upload key: " + key);
+    }
 
-        return toOwnerResponse(photo);
+    private long verifySize(String key) {
+        try {
+            return storageService.getFileSize(key);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Uploaded file not found: " + key);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to verify uploaded file: " + e.getMessage(), e);
+        }
     }
 
-    public List<PhotoResponse> getAlbumPhotos(String albumToken) {
+    private List<Long> verifySizes(List<com.senalbum.photo.dto.ConfirmUploadRequest> requests) {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (com.senalbum.photo.dto.ConfirmUploadRequest request : requests) {
+            futures.add(verificationExecutor.submit(() -> storageService.getFileSize(request.getOriginalKey())));
+        }
+        List<Long> sizes = new ArrayList<>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    sizes.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof NoSuchFileException) {
+                        throw new RuntimeException("Uploaded file not found: " + requests.get(i).getOriginalKey());
+                    }
+                    throw new RuntimeException("Failed to verify uploaded file: " + e.getCause().getMessage(),
+                            e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while verifying uploaded files", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return sizes;
+    }
+
+    /**
+     * Vérifie que l'ajout de additionalBytes reste dans la limite de stockage
+     * du forfait du photographe propriétaire de l'album
+     */
+    public void checkStorageQuota(Album album, long additionalBytes) {
+        storageUsageService.checkQuota(album, additionalBytes);
+    }
+
+    public List<PhotoResponse> getAlbumPhotos(String albumToken, String sort) {
         Album album = albumService.getAlbumEntityByToken(albumToken);
         System.out.println("DEBUG: Fetching photos for token: " + albumToken);
         System.out.println("DEBUG: Resolved Album ID: " + album.getId());
 
-        List<Photo> photos = photoRepository.findByAlbumOrderByCreatedAtAsc(album);
+        List<Photo> photos = findAlbumPhotos(album, sort);
         System.out.println("DEBUG: Found " + photos.size() + " photos in DB for album " + album.getId());
 
+        Map<UUID, List<PhotoRendition>> renditions = renditionsByPhoto(album);
+        Map<String, String> urls = presignedUrls(photos, renditions);
         return photos.stream()
-                .map(photo -> toResponse(photo, albumToken))
+                .map(photo -> toResponse(photo, albumToken, renditions.getOrDefault(photo.getId(), List.of()), urls))
                 .collect(Collectors.toList());
     }
 
-    public byte[] getPreviewPhoto(String albumToken, UUID photoId) {
+    /**
+     * Ordre d'affichage : "uploaded" (par défaut) ou "captured" (date de prise
+     * de vue, les photos sans date à la fin)
+     */
+    private List<Photo> findAlbumPhotos(Album album, String sort) {
+        if (sort == null || sort.isBlank() || "uploaded".equalsIgnoreCase(sort)) {
+            return photoRepository.findByAlbumOrderByCreatedAtAsc(album);
+        }
+        if ("captured".equalsIgnoreCase(sort)) {
+            return photoRepository.findByAlbumOrderByCapturedAtAscCreatedAtAsc(album);
+        }
+        throw new RuntimeException("Invalid sort: " + sort);
+    }
+
+    /**
+     * Clé de la preview à servir, résolue sans toucher au stockage : le
+     * contrôleur peut répondre 304 avant de l'ouvrir
+     */
+    public String getPreviewPath(String albumToken, UUID photoId, Integer width) {
         Album album = albumService.getAlbumEntityByToken(albumToken);
         Photo photo = photoRepository.findById(photoId)
                 .orElseThrow(() -> new RuntimeException("Photo not found"));
@@ -141,9 +482,12 @@ public class PhotoService {
         if (!photo.getAlbum().getId().equals(album.getId())) {
             throw new RuntimeException("Photo does not belong to album");
         }
+        return previewPathFor(photo, width);
+    }
 
+    public StorageObject openPreview(String previewPath) {
         try {
-            return storageService.getPreviewFile(photo.getPreviewPath());
+            return storageService.openPreviewFile(previewPath);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get preview photo", e);
         }
@@ -158,11 +502,20 @@ public class PhotoService {
             throw new RuntimeException("Photo does not belong to album");
         }
 
+        return toDownload(photo);
+    }
+
+    /**
+     * Décrit l'original à télécharger sans l'ouvrir : la taille connue en base
+     * suffit à valider les plages demandées
+     */
+    private PhotoDownloadDTO toDownload(Photo photo) {
         try {
-            byte[] data = storageService.getOriginalFile(photo.getOriginalPath());
+            long size = photo.getSize() != null && photo.getSize() > 0 ? photo.getSize()
+                    : storageService.getFileSize(photo.getOriginalPath());
             String filename = photo.getOriginalFilename() != null ? photo.getOriginalFilename()
                     : "photo-" + photo.getId() + ".jpg";
-            return new PhotoDownloadDTO(data, filename);
+            return new PhotoDownloadDTO(photo.getOriginalPath(), size, filename);
         } catch (Exception e) {
             throw new RuntimeException("Failed to get original photo", e);
         }
@@ -184,30 +537,55 @@ public class PhotoService {
             throw new RuntimeException("Photo does not belong to the specified album");
         }
 
-        // Delete files from storage
-        try {
-            storageService.deleteFile(photo.getOriginalPath());
-            storageService.deleteFile(photo.getPreviewPath());
-        } catch (Exception e) {
-            // Log warning but continue to delete entity
-            System.err.println("Warning: Failed to delete files for photo " + photoId + ": " + e.getMessage());
+        // Files go only once the row deletion is committed (a shared original
+        // only goes with its last reference, released in this transaction)
+        List<String> keys = new ArrayList<>();
+        String originalPath = photo.getContentHash() != null ? contentStore.release(photo.getOriginalPath())
+                : photo.getOriginalPath();
+        if (originalPath != null) {
+            keys.add(originalPath);
+        }
+        if (!photo.getPreviewPath().equals(photo.getOriginalPath())) {
+            keys.add(photo.getPreviewPath());
         }
+        for (PhotoRendition rendition : photo.getRenditions()) {
+            if (!rendition.getStorageKey().equals(photo.getPreviewPath())) {
+                keys.add(rendition.getStorageKey());
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    List<String> failed = storageService.deleteFiles(keys);
+                    if (!failed.isEmpty()) {
+                        logger.warn("Failed to delete {} files for photo {}", failed.size(), photoId);
+                    }
+                } catch (Exception e) {
+                    // Unreferenced files are collected later by the orphaned object GC
+                    logger.warn("Failed to delete files for photo {}: {}", photoId, e.getMessage());
+                }
+            }
+        });
 
         photoRepository.delete(photo);
+        storageUsageService.removePhotos(photographerId, albumId, photo.getSize() != null ? photo.getSize() : 0L, 1);
     }
 
-    public List<PhotoResponse> getPhotosForOwner(UUID photographerId, UUID albumId) {
+    public List<PhotoResponse> getPhotosForOwner(UUID photographerId, UUID albumId, String sort) {
         Album album = albumService.getAlbumEntity(albumId);
         if (!album.getPhotographer().getId().equals(photographerId)) {
             throw new RuntimeException("Unauthorized: Album does not belong to photographer");
         }
-        return photoRepository.findByAlbumOrderByCreatedAtAsc(album)
-                .stream()
-                .map(photo -> toOwnerResponse(photo))
+        Map<UUID, List<PhotoRendition>> renditions = renditionsByPhoto(album);
+        List<Photo> photos = findAlbumPhotos(album, sort);
+        Map<String, String> urls = presignedUrls(photos, renditions);
+        return photos.stream()
+                .map(photo -> toOwnerResponse(photo, renditions.getOrDefault(photo.getId(), List.of()), urls))
                 .collect(Collectors.toList());
     }
 
-    public byte[] getPreviewForOwner(UUID photographerId, UUID albumId, UUID photoId) {
+    public String getPreviewPathForOwner(UUID photographerId, UUID albumId, UUID photoId, Integer width) {
         Album album = albumService.getAlbumEntity(albumId);
         if (!album.getPhotographer().getId().equals(photographerId)) {
             throw new RuntimeException("Unauthorized: Album does not belong to photographer");
@@ -218,12 +596,7 @@ public class PhotoService {
         if (!photo.getAlbum().getId().equals(albumId)) {
             throw new RuntimeException("Photo does not belong to album");
         }
-
-        try {
-            return storageService.getPreviewFile(photo.getPreviewPath());
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get preview photo", e);
-        }
+        return previewPathFor(photo, width);
     }
 
     public PhotoDownloadDTO getOriginalForOwner(UUID photographerId, UUID albumId, UUID photoId) {
@@ -238,27 +611,45 @@ public class PhotoService {
             throw new RuntimeException("Photo does not belong to album");
         }
 
+        return toDownload(photo);
+    }
+
+    /**
+     * Signe en une fois toutes les clés affichées (preview, original,
+     * déclinaisons) ; null si le stockage ne sait pas pré-signer
+     */
+    private Map<String, String> presignedUrls(List<Photo> photos, Map<UUID, List<PhotoRendition>> renditions) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Photo photo : photos) {
+            if (photo.getPreviewPath() != null) {
+                keys.add(photo.getPreviewPath());
+            }
+            if (photo.getOriginalPath() != null) {
+                keys.add(photo.getOriginalPath());
+            }
+            renditions.getOrDefault(photo.getId(), List.of())
+                    .forEach(rendition -> keys.add(rendition.getStorageKey()));
+        }
         try {
-            byte[] data = storageService.getOriginalFile(photo.getOriginalPath());
-            String filename = photo.getOriginalFilename() != null ? photo.getOriginalFilename()
-                    : "photo-" + photo.getId() + ".jpg";
-            return new PhotoDownloadDTO(data, filename);
+            return storageService.generatePresignedDownloadUrls(keys);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to get original photo", e);
+            return null;
         }
     }
 
-    private PhotoResponse toOwnerResponse(Photo photo) {
+    private PhotoResponse toOwnerResponse(Photo photo, List<PhotoRendition> renditions, Map<String, String> urls) {
         String previewUrl;
         String downloadUrl;
-        try {
-            previewUrl = storageService.generatePresignedDownloadUrl(photo.getPreviewPath());
-            downloadUrl = storageService.generatePresignedDownloadUrl(photo.getOriginalPath());
-        } catch (Exception e) {
+        String fallbackPreviewUrl = null;
+        if (urls != null) {
+            previewUrl = urls.get(photo.getPreviewPath());
+            downloadUrl = urls.get(photo.getOriginalPath());
+        } else {
             // Fallback for legacy local files or DB storage
             previewUrl = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/albums/" + photo.getAlbum().getId() + "/photos/" + photo.getId() + "/preview")
                     .toUriString();
+            fallbackPreviewUrl = previewUrl;
             downloadUrl = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/albums/" + photo.getAlbum().getId() + "/photos/" + photo.getId() + "/download")
                     .toUriString();
@@ -268,19 +659,30 @@ public class PhotoService {
                 photo.getId(),
                 previewUrl,
                 downloadUrl,
-                photo.getCreatedAt());
+                photo.getCreatedAt(),
+                photo.getWidth(),
+                photo.getHeight(),
+                photo.getOrientation(),
+                photo.getCapturedAt(),
+                photo.getCamera(),
+                photo.getBlurHash(),
+                processingStatus(photo),
+                toRenditionResponses(renditions, fallbackPreviewUrl, urls));
     }
 
-    private PhotoResponse toResponse(Photo photo, String albumToken) {
+    private PhotoResponse toResponse(Photo photo, String albumToken, List<PhotoRendition> renditions,
+            Map<String, String> urls) {
         String previewUrl;
         String downloadUrl;
-        try {
-            previewUrl = storageService.generatePresignedDownloadUrl(photo.getPreviewPath());
-            downloadUrl = storageService.generatePresignedDownloadUrl(photo.getOriginalPath());
-        } catch (Exception e) {
+        String fallbackPreviewUrl = null;
+        if (urls != null) {
+            previewUrl = urls.get(photo.getPreviewPath());
+            downloadUrl = urls.get(photo.getOriginalPath());
+        } else {
             previewUrl = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/public/albums/" + albumToken + "/photos/" + photo.getId() + "/preview")
                     .toUriString();
+            fallbackPreviewUrl = previewUrl;
             downloadUrl = org.springframework.web.servlet.support.ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path("/api/public/albums/" + albumToken + "/photos/" + photo.getId() + "/download")
                     .toUriString();
@@ -290,6 +692,58 @@ public class PhotoService {
                 photo.getId(),
                 previewUrl,
                 downloadUrl,
-                photo.getCreatedAt());
+                photo.getCreatedAt(),
+                photo.getWidth(),
+                photo.getHeight(),
+                photo.getOrientation(),
+                photo.getCapturedAt(),
+                photo.getCamera(),
+                photo.getBlurHash(),
+                processingStatus(photo),
+                toRenditionResponses(renditions, fallbackPreviewUrl, urls));
+    }
+
+    private List<PhotoRenditionResponse> toRenditionResponses(List<PhotoRendition> renditions,
+            String fallbackPreviewUrl, Map<String, String> urls) {
+        return renditions.stream()
+                .map(rendition -> {
+                    String url;
+                    if (fallbackPreviewUrl != null) {
+                        // Stockage sans URL pré-signée : l'endpoint preview sert la déclinaison
+                        url = fallbackPreviewUrl + "?width=" + rendition.getWidth();
+                    } else {
+                        url = urls.get(rendition.getStorageKey());
+                    }
+                    return new PhotoRenditionResponse(rendition.getWidth(), rendition.getHeight(),
+                            rendition.getSizeBytes(), url);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, List<PhotoRendition>> renditionsByPhoto(Album album) {
+        return renditionRepository.findByAlbum(album).stream()
+                .collect(Collectors.groupingBy(rendition -> rendition.getPhoto().getId()));
+    }
+
+    /**
+     * Plus petite déclinaison couvrant la largeur demandée, à défaut la plus
+     * grande disponible, à défaut la preview historique
+     */
+    private String previewPathFor(Photo photo, Integer width) {
+        if (width == null) {
+            return photo.getPreviewPath();
+        }
+        List<PhotoRendition> renditions = renditionRepository.findByPhotoOrderByWidthAsc(photo);
+        for (PhotoRendition rendition : renditions) {
+            if (rendition.getWidth() >= width) {
+                return rendition.getStorageKey();
+            }
+        }
+        return renditions.isEmpty() ? photo.getPreviewPath() : renditions.get(renditions.size() - 1).getStorageKey();
+    }
+
+    private PhotoProcessingStatus processingStatus(Photo photo) {
+        // Les photos antérieures au pipeline asynchrone ont toujours leur preview
+        return photo.getProcessingStatus() != null ? photo.getProcessingStatus() : PhotoProcessingStatus.READY;
     }
 }
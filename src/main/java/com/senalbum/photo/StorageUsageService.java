@@ -0,0 +1,176 @@
+package com.senalbum.photo;
+
+import com.senalbum.album.Album;
+import com.senalbum.album.AlbumRepository;
+import com.senalbum.photographer.PhotographerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compteurs d'espace utilisé et de nombre de photos, tenus sur le
+ * photographe et sur l'album : le quota se vérifie en lisant une ligne au
+ * lieu de sommer toutes les photos. Les compteurs ne changent que par
+ * incrément atomique (UPDATE ... SET x = x + ?) dans la transaction qui
+ * insère ou supprime les photos ; une réconciliation au démarrage puis
+ * périodique les initialise et corrige les écarts éventuels.
+ */
+@Service
+public class StorageUsageService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageUsageService.class);
+
+    // Lu après le verrou du photographe : toute transaction qui modifie ses
+    // compteurs verrouille aussi sa ligne, et a donc déjà validé ou attend.
+    // Albums supprimés exclus : leur usage est rendu au photographe dès la suppression
+    private static final String RECONCILE_ALBUMS = "UPDATE albums a SET storage_used_bytes = s.bytes, photo_count = s.photos"
+            + " FROM (SELECT al.id, COALESCE(SUM(COALESCE(p.size, 0)), 0) AS bytes, COUNT(p.id) AS photos"
+            + " FROM albums al LEFT JOIN photos p ON p.album_id = al.id"
+            + " WHERE al.photographer_id = ? AND al.deleted_at IS NULL GROUP BY al.id) s"
+            + " WHERE a.id = s.id AND (a.storage_used_bytes <> s.bytes OR a.photo_count <> s.photos)";
+
+    private static final String RECONCILE_PHOTOGRAPHER = "UPDATE photographers ph"
+            + " SET storage_used_bytes = s.bytes, photo_count = s.photos"
+            + " FROM (SELECT COALESCE(SUM(COALESCE(p.size, 0)), 0) AS bytes, COUNT(p.id) AS photos"
+            + " FROM albums a JOIN photos p ON p.album_id = a.id"
+            + " WHERE a.photographer_id = ? AND a.deleted_at IS NULL) s"
+            + " WHERE ph.id = ? AND (ph.storage_used_bytes <> s.bytes OR ph.photo_count <> s.photos)";
+
+    @Autowired
+    private PhotographerRepository photographerRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.storage.usage.reconcile-enabled:true}")
+    private boolean reconcileEnabled;
+
+    /**
+     * Espace utilisé par le photographe, en une lecture de sa ligne
+     */
+    public long getUsedBytes(UUID photographerId) {
+        Long used = photographerRepository.findStorageUsedBytes(photographerId);
+        return used != null ? used : 0L;
+    }
+
+    /**
+     * Vérifie, sans rien réserver, que l'ajout de additionalBytes reste dans
+     * la limite du forfait : sert à refuser tôt, avant l'envoi des fichiers
+     */
+    public void checkQuota(Album album, long additionalBytes) {
+        long storageLimit = album.getPhotographer().getSubscriptionPlan().getMaxStorageBytes();
+        if (getUsedBytes(album.getPhotographer().getId()) + additionalBytes > storageLimit) {
+            throw quotaExceeded(storageLimit);
+        }
+    }
+
+    /**
+     * Compte des photos ajoutées à l'album, dans la transaction de l'appelant.
+     * Le contrôle du quota et l'incrément se font dans le même UPDATE : deux
+     * uploads simultanés ne peuvent pas dépasser la limite ensemble.
+     */
+    public void addPhotos(Album album, long bytes, int photos) {
+        UUID photographerId = album.getPhotographer().getId();
+        long storageLimit = album.getPhotographer().getSubscriptionPlan().getMaxStorageBytes();
+        if (photographerRepository.addUsageWithinLimit(photographerId, bytes, photos, storageLimit) == 0) {
+            throw quotaExceeded(storageLimit);
+        }
+        albumRepository.addUsage(album.getId(), bytes, photos);
+    }
+
+    /**
+     * Décompte des photos supprimées, dans la transaction de l'appelant
+     */
+    public void removePhotos(UUID photographerId, UUID albumId, long bytes, int photos) {
+        photographerRepository.addUsage(photographerId, -bytes, -photos);
+        albumRepository.addUsage(albumId, -bytes, -photos);
+    }
+
+    /**
+     * Rend au photographe tout l'usage d'un album supprimé, dont les photos
+     * sont ensuite purgées sans toucher aux compteurs
+     */
+    public void releaseAlbum(UUID albumId) {
+        albumRepository.releaseUsageToPhotographer(albumId);
+    }
+
+    /**
+     * Initialise les compteurs des données existantes avant que l'application
+     * ne reçoive des requêtes (le serveur web démarre après cette étape) : le
+     * quota est appliqué dès la première requête. Une erreur bloque le
+     * démarrage plutôt que de servir avec des compteurs faux.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcileAll();
+    }
+
+    /**
+     * Recalcule périodiquement les compteurs depuis les photos
+     */
+    @Scheduled(initialDelayString = "${app.storage.usage.reconcile-interval-ms:21600000}",
+            fixedDelayString = "${app.storage.usage.reconcile-interval-ms:21600000}")
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            reconcileAll();
+        } catch (Exception e) {
+            logger.warn("Storage usage reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Un photographe à la fois, dans sa propre transaction : sa ligne est
+     * verrouillée (SELECT ... FOR UPDATE) avant de sommer ses photos. Les
+     * uploads et suppressions concurrents, qui incrémentent cette même ligne,
+     * attendent la fin de la correction au lieu d'être écrasés par des sommes
+     * lues avant leur commit.
+     */
+    private void reconcileAll() {
+        int albums = 0;
+        int photographers = 0;
+        for (UUID photographerId : jdbcTemplate.queryForList("SELECT id FROM photographers", UUID.class)) {
+            int[] fixed = transactionTemplate.execute(status -> {
+                List<UUID> locked = jdbcTemplate.queryForList(
+                        "SELECT id FROM photographers WHERE id = ? FOR UPDATE", UUID.class, photographerId);
+                if (locked.isEmpty()) {
+                    return new int[] { 0, 0 }; // Supprimé entre-temps
+                }
+                return new int[] {
+                        jdbcTemplate.update(RECONCILE_ALBUMS, photographerId),
+                        jdbcTemplate.update(RECONCILE_PHOTOGRAPHER, photographerId, photographerId) };
+            });
+            albums += fixed[0];
+            photographers += fixed[1];
+        }
+        if (albums > 0 || photographers > 0) {
+            logger.info("Storage usage reconciled: {} albums and {} photographers corrected", albums, photographers);
+        }
+    }
+
+    private static RuntimeException quotaExceeded(long storageLimit) {
+        String limitLabel = (storageLimit / (1024 * 1024)) + " Mo";
+        if (storageLimit >= 1024 * 1024 * 1024) {
+            limitLabel = (storageLimit / (1024 * 1024 * 1024)) + " Go";
+        }
+        return new RuntimeException(
+                "Espace insuffisant : Votre limite de stockage (" + limitLabel + ") est atteinte.");
+    }
+}
@@ -13,4 +13,5 @@ public class ConfirmUploadRequest {
   private String filename;
   private Long size;
   private String mimeType;
+  private String contentHash; // À la place d'originalKey : contenu déjà stocké (voir /preflight)
 }
@@ -0,0 +1,12 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Data
+@AllArgsConstructor
+public class PhotoArchiveDTO {
+  private String filename;
+  private StreamingResponseBody body;
+}
@@ -0,0 +1,15 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoDeletionRequest {
+  private List<UUID> photoIds;
+}
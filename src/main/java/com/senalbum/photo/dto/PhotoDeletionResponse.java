@@ -0,0 +1,20 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoDeletionResponse {
+  private UUID operationId;
+  private String status; // PENDING, RUNNING ou COMPLETED (fichiers du stockage)
+  private int deletedPhotos;
+  private int totalObjects;
+  private int deletedObjects;
+  private List<String> failedObjects; // Clés restées sur le stockage
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 @Data
 @AllArgsConstructor
 public class PhotoDownloadDTO {
-  private byte[] data;
+  private String path; // Clé de l'original, ouvert par le contrôleur selon l'en-tête Range
+  private long size; // Taille totale en octets
   private String filename;
 }
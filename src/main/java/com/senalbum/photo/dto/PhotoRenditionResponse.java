@@ -0,0 +1,13 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PhotoRenditionResponse {
+    private int width;
+    private int height;
+    private long size; // Taille en octets
+    private String url;
+}
@@ -1,9 +1,11 @@
 package com.senalbum.photo.dto;
 
+import com.senalbum.photo.PhotoProcessingStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -13,5 +15,13 @@ public class PhotoResponse {
     private String previewUrl;
     private String downloadUrl;
     private LocalDateTime createdAt;
+    private Integer width; // Dimensions de l'original, pour réserver la place avant chargement
+    private Integer height;
+    private Integer orientation; // Tag EXIF Orientation (1 à 8) de l'original
+    private LocalDateTime capturedAt; // Date de prise de vue, null si inconnue
+    private String camera;
+    private String blurHash; // Aperçu flou à décoder côté client, null tant que la photo n'est pas traitée
+    private PhotoProcessingStatus processingStatus; // READY quand la preview définitive est disponible
+    private List<PhotoRenditionResponse> renditions; // Par largeur croissante, pour construire un srcset
 }
 
@@ -0,0 +1,14 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreflightRequest {
+  private List<String> hashes; // SHA-256 en hexadécimal des fichiers à envoyer
+}
@@ -0,0 +1,15 @@
+package com.senalbum.photo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreflightResponse {
+  private boolean dedupEnabled;
+  private List<String> stored; // Empreintes déjà stockées : confirmer par contentHash sans upload
+}
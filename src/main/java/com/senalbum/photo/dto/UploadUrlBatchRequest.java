@@ -0,0 +1,16 @@
+package com.senalbum.photo.dto;
+
+import com.senalbum.storage.dto.PresignedUploadRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadUrlBatchRequest {
+  private List<PresignedUploadRequest> files; // albumId ignoré : celui du chemin fait foi
+  private boolean postPolicy; // Joindre une policy de POST valable pour tout l'album
+}
@@ -0,0 +1,17 @@
+package com.senalbum.photo.dto;
+
+import com.senalbum.storage.dto.PresignedPostResponse;
+import com.senalbum.storage.dto.PresignedUploadResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadUrlBatchResponse {
+  private List<PresignedUploadResponse> uploads; // Dans l'ordre des fichiers demandés
+  private PresignedPostResponse postPolicy;
+}
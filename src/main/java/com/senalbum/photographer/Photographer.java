@@ -63,6 +63,13 @@ public class Photographer {
     @Column(name = "watermark_enabled")
     private Boolean watermarkEnabled = false;
 
+    // Compteurs d'usage : modifiés uniquement par UPDATE atomique (StorageUsageService)
+    @Column(name = "storage_used_bytes", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long storageUsedBytes;
+
+    @Column(name = "photo_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long photoCount;
+
     @Column(name = "extra_album_credits")
     private Integer extraAlbumCredits = 0;
 
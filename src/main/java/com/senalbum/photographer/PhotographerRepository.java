@@ -1,6 +1,9 @@
 package com.senalbum.photographer;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -16,4 +19,25 @@ public interface PhotographerRepository extends JpaRepository<Photographer, UUID
 
     // Admin statistics
     long countByCreatedAtAfter(java.time.LocalDateTime date);
+
+    @Query(value = "SELECT COALESCE(SUM(storage_used_bytes), 0) FROM photographers", nativeQuery = true)
+    Long getGlobalStorageUsedBytes();
+
+    @Query(value = "SELECT COALESCE(SUM(photo_count), 0) FROM photographers", nativeQuery = true)
+    Long getGlobalPhotoCount();
+
+    // Compteurs d'usage (voir StorageUsageService)
+    @Query(value = "SELECT storage_used_bytes FROM photographers WHERE id = :id", nativeQuery = true)
+    Long findStorageUsedBytes(@Param("id") UUID id);
+
+    @Modifying
+    @Query(value = "UPDATE photographers SET storage_used_bytes = storage_used_bytes + :bytes, photo_count = photo_count + :photos"
+            + " WHERE id = :id AND storage_used_bytes + :bytes <= :limit", nativeQuery = true)
+    int addUsageWithinLimit(@Param("id") UUID id, @Param("bytes") long bytes, @Param("photos") long photos,
+            @Param("limit") long limit);
+
+    @Modifying
+    @Query(value = "UPDATE photographers SET storage_used_bytes = storage_used_bytes + :bytes, photo_count = photo_count + :photos"
+            + " WHERE id = :id", nativeQuery = true)
+    int addUsage(@Param("id") UUID id, @Param("bytes") long bytes, @Param("photos") long photos);
 }
@@ -2,16 +2,26 @@ package com.senalbum.publicapi;
 
 import com.senalbum.album.AlbumService;
 import com.senalbum.album.dto.AlbumResponse;
+import com.senalbum.photo.PhotoArchiveService;
 import com.senalbum.photo.PhotoService;
+import com.senalbum.photo.dto.PhotoArchiveDTO;
 import com.senalbum.photo.dto.PhotoDownloadDTO;
 import com.senalbum.photo.dto.PhotoResponse;
+import com.senalbum.storage.StorageObject;
+import com.senalbum.storage.StorageResponses;
+import com.senalbum.storage.StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,13 +44,18 @@ public class PublicAlbumController {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private PhotoArchiveService photoArchiveService;
+
+    @Autowired
+    private StorageService storageService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @GetMapping("/{token}")
     public ResponseEntity<AlbumResponse> getAlbumByToken(@PathVariable String token) {
         AlbumResponse album = albumService.getAlbumByToken(token);
-        // Async call (idéalement) mais ici synchrone pour la simplicité
         albumService.incrementViewCount(token);
         return ResponseEntity.ok(album);
     }
@@ -97,54 +112,90 @@ public class PublicAlbumController {
     @GetMapping("/{token}/photos")
     public ResponseEntity<List<PhotoResponse>> getAlbumPhotos(
             @PathVariable String token,
+            @RequestParam(required = false) String sort,
             HttpServletRequest request) {
         checkAccess(token, request);
-        List<PhotoResponse> photos = photoService.getAlbumPhotos(token);
+        List<PhotoResponse> photos = photoService.getAlbumPhotos(token, sort);
         return ResponseEntity.ok(photos);
     }
 
     @GetMapping("/{token}/cover")
-    public ResponseEntity<byte[]> getCoverImage(@PathVariable String token) {
+    public ResponseEntity<Resource> getCoverImage(@PathVariable String token, HttpServletRequest request,
+            WebRequest webRequest) {
         // Cover is usually public
-        byte[] imageBytes = albumService.getCoverImage(token);
+        String coverPath = albumService.getCoverImagePath(token);
+        String etag = StorageResponses.etag(coverPath);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, sans ouvrir le stockage
+        }
+        StorageObject cover = albumService.openCoverImage(coverPath);
 
-        return ResponseEntity.ok()
+        return StorageResponses.body(ResponseEntity.ok()
+                .eTag(etag)
                 .header(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE)
-                .contentLength(imageBytes.length)
-                .body(imageBytes);
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE), cover, request);
     }
 
     @GetMapping("/{token}/photos/{photoId}/preview")
-    public ResponseEntity<byte[]> getPreviewPhoto(
+    public ResponseEntity<Resource> getPreviewPhoto(
             @PathVariable String token,
             @PathVariable UUID photoId,
+            @RequestParam(required = false) Integer width,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+        checkAccess(token, request);
+        String previewPath = photoService.getPreviewPath(token, photoId, width);
+        String etag = StorageResponses.etag(previewPath);
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304, sans ouvrir le stockage
+        }
+        StorageObject preview = photoService.openPreview(previewPath);
+
+        return StorageResponses.body(ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400")
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE), preview, request);
+    }
+
+    /**
+     * Album complet en une archive ZIP diffusée au fil de l'eau : un seul
+     * contrôle d'accès et un seul téléchargement comptabilisé
+     */
+    @GetMapping("/{token}/download.zip")
+    public ResponseEntity<StreamingResponseBody> downloadAlbumArchive(
+            @PathVariable String token,
             HttpServletRequest request) {
         checkAccess(token, request);
-        byte[] imageBytes = photoService.getPreviewPhoto(token, photoId);
+        PhotoArchiveDTO archive = photoArchiveService.prepareArchive(token);
+
+        albumService.incrementDownloadCount(token);
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400")
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE)
-                .contentLength(imageBytes.length)
-                .body(imageBytes);
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(archive.getFilename(), StandardCharsets.UTF_8).build().toString())
+                .body(archive.getBody());
     }
 
     @GetMapping("/{token}/photos/{photoId}/download")
-    public ResponseEntity<byte[]> downloadOriginalPhoto(
+    public ResponseEntity<Resource> downloadOriginalPhoto(
             @PathVariable String token,
             @PathVariable UUID photoId,
-            HttpServletRequest request) {
+            HttpServletRequest request) throws IOException {
         checkAccess(token, request);
         PhotoDownloadDTO downloadDTO = photoService.getOriginalPhoto(token, photoId);
 
-        albumService.incrementDownloadCount(token);
+        // Une reprise ou les autres segments d'un téléchargement parallèle ne comptent pas
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || range.replace(" ", "").startsWith("bytes=0-")) {
+            albumService.incrementDownloadCount(token);
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", downloadDTO.getFilename());
-        headers.setContentLength(downloadDTO.getData().length);
 
-        return new ResponseEntity<>(downloadDTO.getData(), headers, HttpStatus.OK);
+        return StorageResponses.download(headers, storageService, downloadDTO.getPath(), downloadDTO.getSize(),
+                request);
     }
 }
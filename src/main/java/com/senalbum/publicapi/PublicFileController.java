@@ -1,12 +1,15 @@
 package com.senalbum.publicapi;
 
-import com.senalbum.storage.FileContent;
-import com.senalbum.storage.FileContentRepository;
+import com.senalbum.storage.HeapCacheStorageService;
+import com.senalbum.storage.StorageObject;
+import com.senalbum.storage.StorageResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -15,10 +18,11 @@ import java.util.UUID;
 public class PublicFileController {
 
   @Autowired
-  private com.senalbum.storage.StorageService storageService;
+  private HeapCacheStorageService storageService;
 
   @GetMapping("/**")
-  public ResponseEntity<byte[]> getFile(jakarta.servlet.http.HttpServletRequest request) throws java.io.IOException {
+  public ResponseEntity<Resource> getFile(jakarta.servlet.http.HttpServletRequest request, WebRequest webRequest)
+      throws java.io.IOException {
     String requestURI = request.getRequestURI();
     String prefix = "/api/public/files/";
     int index = requestURI.indexOf(prefix);
@@ -31,11 +35,18 @@ public class PublicFileController {
     // Decode in case of spaces etc.
     key = java.net.URLDecoder.decode(key, java.nio.charset.StandardCharsets.UTF_8);
 
+    // La clé figure dans l'URL : revalidation sans accès au stockage
+    String etag = StorageResponses.etag(key);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+
     try {
-      byte[] data = storageService.getOriginalFile(key);
+      StorageObject file = storageService.openBrandFile(key);
 
       // Try to guess content type
-      String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+      String contentType = file.getContentType() != null ? file.getContentType()
+          : MediaType.APPLICATION_OCTET_STREAM_VALUE;
       if (key.toLowerCase().endsWith(".jpg") || key.toLowerCase().endsWith(".jpeg"))
         contentType = "image/jpeg";
       else if (key.toLowerCase().endsWith(".png"))
@@ -45,10 +56,10 @@ public class PublicFileController {
       else if (key.toLowerCase().endsWith(".webp"))
         contentType = "image/webp";
 
-      return ResponseEntity.ok()
+      return StorageResponses.body(ResponseEntity.ok()
+          .eTag(etag)
           .header(HttpHeaders.CONTENT_TYPE, contentType)
-          .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400")
-          .body(data);
+          .header(HttpHeaders.CACHE_CONTROL, "public, max-age=86400"), file, request);
     } catch (Exception e) {
       return ResponseEntity.notFound().build();
     }
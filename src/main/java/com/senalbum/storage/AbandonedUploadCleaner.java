@@ -0,0 +1,70 @@
+package com.senalbum.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Annule les multipart uploads restés ouverts sur le bucket (client coupé,
+ * serveur redémarré en plein envoi...). Les parts déjà envoyées sont facturées
+ * tant que l'upload n'est ni terminé ni annulé.
+ */
+@Component
+public class AbandonedUploadCleaner {
+
+  private static final Logger logger = LoggerFactory.getLogger(AbandonedUploadCleaner.class);
+
+  @Autowired
+  private S3Client s3Client;
+
+  @Value("${wasabi.bucket}")
+  private String bucketName;
+
+  @Value("${wasabi.upload.abandoned-after-hours:24}")
+  private long abandonedAfterHours;
+
+  @Scheduled(cron = "${wasabi.upload.cleanup-cron:0 30 3 * * *}")
+  public void abortAbandonedUploads() {
+    Instant threshold = Instant.now().minus(Duration.ofHours(abandonedAfterHours));
+    int aborted = 0;
+
+    try {
+      ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder()
+          .bucket(bucketName)
+          .build();
+
+      for (MultipartUpload upload : s3Client.listMultipartUploadsPaginator(request).uploads()) {
+        if (upload.initiated() == null || upload.initiated().isAfter(threshold)) {
+          continue;
+        }
+        try {
+          s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+              .bucket(bucketName)
+              .key(upload.key())
+              .uploadId(upload.uploadId())
+              .build());
+          aborted++;
+        } catch (Exception e) {
+          logger.warn("Failed to abort multipart upload {} for {}: {}", upload.uploadId(), upload.key(),
+              e.getMessage());
+        }
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to list multipart uploads: {}", e.getMessage());
+    }
+
+    if (aborted > 0) {
+      logger.info("Aborted {} abandoned multipart uploads", aborted);
+    }
+  }
+}
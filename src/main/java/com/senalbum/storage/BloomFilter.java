@@ -0,0 +1,71 @@
+package com.senalbum.storage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtre de Bloom sur des chaînes : environ 10 bits par clé pour 1 % de faux
+ * positifs, quelle que soit la longueur des clés. Pas de faux négatifs : une
+ * clé ajoutée est toujours reconnue.
+ */
+class BloomFilter {
+
+  private final long[] bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  BloomFilter(long expectedKeys, double falsePositiveRate) {
+    long n = Math.max(expectedKeys, 1);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64)];
+    bitCount = (long) bits.length * 64;
+    hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  void add(String key) {
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  boolean mightContain(String key) {
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long sizeBytes() {
+    return (long) bits.length * Long.BYTES;
+  }
+
+  private long index(int combined) {
+    return (combined & 0x7fffffffL) % bitCount;
+  }
+
+  /**
+   * FNV-1a 64 bits suivi du mélange final de MurmurHash3
+   */
+  private static long hash64(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
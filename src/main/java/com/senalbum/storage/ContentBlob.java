@@ -0,0 +1,61 @@
+package com.senalbum.storage;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Contenu stocké une seule fois par photographe, identifié par son SHA-256.
+ * Chaque photo qui l'utilise compte une référence ; le fichier n'est
+ * supprimé qu'avec la dernière.
+ */
+@Entity
+@Table(name = "content_blobs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_content_blobs_owner_hash", columnNames = { "owner_id", "content_hash" }),
+    @UniqueConstraint(name = "uk_content_blobs_storage_key", columnNames = { "storage_key" }) })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentBlob {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+
+  @Column(name = "owner_id", nullable = false)
+  private UUID ownerId; // Photographe : pas de déduplication entre comptes
+
+  @Column(name = "content_hash", nullable = false, length = 64)
+  private String contentHash; // SHA-256 en hexadécimal
+
+  @Column(name = "storage_key", nullable = false)
+  private String storageKey;
+
+  @Column(name = "size_bytes", nullable = false)
+  private Long sizeBytes;
+
+  @Column(name = "content_type")
+  private String contentType;
+
+  @Column(name = "ref_count", nullable = false)
+  private Integer refCount;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @PrePersist
+  protected void onCreate() {
+    createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,176 @@
+package com.senalbum.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stockage adressé par contenu des originaux (optionnel,
+ * app.storage.dedup.enabled). Un même fichier envoyé dans plusieurs albums
+ * d'un photographe n'est stocké qu'une fois ; chaque photo en garde une
+ * référence. Les compteurs sont modifiés par des UPDATE atomiques dans la
+ * transaction de l'appelant : une photo non enregistrée ne garde pas de
+ * référence.
+ */
+@Service
+public class ContentStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(ContentStore.class);
+
+  @Autowired
+  private StorageService storageService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Value("${app.storage.dedup.enabled:false}")
+  private boolean enabled;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enregistre l'original d'une photo : le fichier n'est envoyé au stockage
+   * que si ce contenu n'y est pas déjà pour ce photographe
+   *
+   * @return Le contenu référencé (clé de stockage et empreinte)
+   */
+  public ContentBlob storeOriginal(UUID ownerId, MultipartFile file) throws IOException {
+    String hash;
+    try (InputStream in = file.getInputStream()) {
+      hash = sha256(in);
+    }
+    ContentBlob existing = acquire(ownerId, hash);
+    if (existing != null) {
+      return existing;
+    }
+
+    String key = storageService.saveContent("blobs/" + ownerId, file.getOriginalFilename(), file.getInputStream(),
+        file.getSize(), file.getContentType());
+    String stored = register(ownerId, hash, key, file.getSize(), file.getContentType());
+    if (!stored.equals(key)) {
+      // Le même contenu a été enregistré entre-temps : notre copie est inutile
+      deleteQuietly(key);
+    }
+    return blob(ownerId, hash, stored, file.getSize(), file.getContentType());
+  }
+
+  /**
+   * Ajoute une référence à un contenu déjà stocké
+   *
+   * @return Le contenu (clé de stockage, taille...), ou null s'il n'est pas
+   *         stocké pour ce photographe
+   */
+  public ContentBlob acquire(UUID ownerId, String hash) {
+    List<ContentBlob> blobs = jdbcTemplate.query(
+        "UPDATE content_blobs SET ref_count = ref_count + 1 WHERE owner_id = ? AND content_hash = ?"
+            + " RETURNING storage_key, size_bytes, content_type",
+        (resultSet, row) -> blob(ownerId, hash, resultSet.getString(1), resultSet.getLong(2),
+            resultSet.getString(3)),
+        ownerId, hash);
+    return blobs.isEmpty() ? null : blobs.get(0);
+  }
+
+  /**
+   * Retire une référence. Le fichier n'est plus référencé quand la clé est
+   * renvoyée : à supprimer par l'appelant une fois sa transaction validée.
+   *
+   * @return La clé à supprimer, ou null si d'autres photos l'utilisent
+   */
+  public String release(String storageKey) {
+    List<Integer> remaining = jdbcTemplate.queryForList(
+        "UPDATE content_blobs SET ref_count = ref_count - 1 WHERE storage_key = ? RETURNING ref_count",
+        Integer.class, storageKey);
+    if (remaining.isEmpty()) {
+      return storageKey; // Pas de référence connue : fichier propre à la photo
+    }
+    if (remaining.get(0) > 0) {
+      return null;
+    }
+    // Un acquire concurrent a pu reprendre une référence : on ne supprime qu'à zéro
+    int deleted = jdbcTemplate.update("DELETE FROM content_blobs WHERE storage_key = ? AND ref_count <= 0",
+        storageKey);
+    return deleted > 0 ? storageKey : null;
+  }
+
+  /**
+   * Empreintes déjà stockées pour ce photographe, parmi celles proposées
+   */
+  public Set<String> findStored(UUID ownerId, Collection<String> hashes) {
+    if (hashes.isEmpty()) {
+      return Set.of();
+    }
+    return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+        "SELECT content_hash FROM content_blobs WHERE owner_id = :ownerId AND content_hash IN (:hashes)",
+        Map.of("ownerId", ownerId, "hashes", hashes), String.class));
+  }
+
+  private String register(UUID ownerId, String hash, String key, long size, String contentType) {
+    return jdbcTemplate.queryForObject(
+        "INSERT INTO content_blobs (id, owner_id, content_hash, storage_key, size_bytes, content_type, ref_count,"
+            + " created_at) VALUES (?, ?, ?, ?, ?, ?, 1, ?)"
+            + " ON CONFLICT (owner_id, content_hash) DO UPDATE SET ref_count = content_blobs.ref_count + 1"
+            + " RETURNING storage_key",
+        String.class, UUID.randomUUID(), ownerId, hash, key, size, contentType,
+        Timestamp.valueOf(LocalDateTime.now()));
+  }
+
+  private void deleteQuietly(String key) {
+    try {
+      storageService.deleteFile(key);
+    } catch (Exception e) {
+      logger.warn("Failed to delete duplicate upload {}: {}", key, e.getMessage());
+    }
+  }
+
+  private static ContentBlob blob(UUID ownerId, String hash, String key, long size, String contentType) {
+    ContentBlob blob = new ContentBlob();
+    blob.setOwnerId(ownerId);
+    blob.setContentHash(hash);
+    blob.setStorageKey(key);
+    blob.setSizeBytes(size);
+    blob.setContentType(contentType);
+    return blob;
+  }
+
+  public static boolean isValidHash(String hash) {
+    return hash != null && hash.matches("[0-9a-f]{64}");
+  }
+
+  private static String sha256(InputStream in) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[64 * 1024];
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, n);
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
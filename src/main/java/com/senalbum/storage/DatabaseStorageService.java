@@ -1,131 +1,403 @@
 package com.senalbum.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Primary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Stockage des fichiers en base, découpés en morceaux de taille fixe dans
+ * {@code file_chunks}. Écriture et lecture se font morceau par morceau : un
+ * fichier n'est jamais entièrement chargé en mémoire.
+ * Les fichiers historiques (large object dans {@code file_contents.data})
+ * restent lisibles.
+ */
 @Service
 public class DatabaseStorageService implements StorageService {
 
   @Autowired
   private FileContentRepository fileContentRepository;
 
-  private static final int PREVIEW_MAX_WIDTH = 1200;
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private PreviewRenderer previewRenderer;
+
+  @Value("${app.storage.database.chunk-size-bytes:524288}")
+  private int chunkSize;
 
   @Override
   public String saveOriginal(MultipartFile file, String albumId) throws IOException {
-    FileContent content = new FileContent();
-    content.setData(file.getBytes());
-    content.setMimeType(file.getContentType());
-
-    content = fileContentRepository.save(content);
-    return content.getId().toString();
+    return saveChunked(file.getInputStream(), file.getContentType());
   }
 
   @Override
   public String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
       throws IOException {
-    // Simple resizing logic (similar to LocalStorageService)
     if (file == null || file.isEmpty()) {
       throw new IOException("File is empty or null");
     }
 
-    BufferedImage originalImage = ImageIO.read(file.getInputStream());
-    if (originalImage == null) {
-      throw new IOException("Invalid image file");
+    byte[] preview = previewRenderer.render(file.getInputStream(), PreviewRenderer.PREVIEW_MAX_WIDTH,
+        watermarkEnabled, watermarkText);
+    return saveChunked(new ByteArrayInputStream(preview), PreviewRenderer.PREVIEW_CONTENT_TYPE);
+  }
+
+  @Override
+  public String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+      throws IOException {
+    return saveChunked(data, contentType);
+  }
+
+  /**
+   * Écrit le flux morceau par morceau, dans une seule transaction pour ne
+   * jamais laisser de fichier partiel
+   */
+  private String saveChunked(InputStream data, String mimeType) throws IOException {
+    try (InputStream in = data) {
+      return transactionTemplate.execute(status -> {
+        FileContent content = new FileContent();
+        content.setMimeType(mimeType);
+        content.setChunkSize(chunkSize);
+        content = fileContentRepository.saveAndFlush(content);
+
+        byte[] buffer = new byte[chunkSize];
+        long size = 0;
+        int index = 0;
+        try {
+          int read;
+          while ((read = in.readNBytes(buffer, 0, chunkSize)) > 0) {
+            byte[] chunk = read == chunkSize ? buffer : Arrays.copyOf(buffer, read);
+            jdbcTemplate.update("INSERT INTO file_chunks (file_id, chunk_index, data) VALUES (?, ?, ?)",
+                content.getId(), index++, chunk);
+            size += read;
+          }
+        } catch (IOException e) {
+          throw new StorageWriteException(e);
+        }
+
+        content.setSizeBytes(size);
+        content.setChunkCount(index);
+        return content.getId().toString();
+      });
+    } catch (StorageWriteException e) {
+      throw (IOException) e.getCause();
+    }
+  }
+
+  @Override
+  public byte[] getOriginalFile(String path) throws IOException {
+    try (StorageObject file = openOriginalFile(path)) {
+      return file.getInputStream().readAllBytes();
+    }
+  }
+
+  @Override
+  public byte[] getPreviewFile(String path) throws IOException {
+    return getOriginalFile(path);
+  }
+
+  @Override
+  public StorageObject openOriginalFile(String path) throws IOException {
+    return openRange(path, 0, Long.MAX_VALUE);
+  }
+
+  @Override
+  public StorageObject openPreviewFile(String path) throws IOException {
+    return openOriginalFile(path);
+  }
+
+  /**
+   * Seuls les morceaux couvrant la plage demandée sont lus, via un curseur
+   * JDBC : la connexion reste ouverte jusqu'à la fermeture du flux retourné
+   */
+  @Override
+  public StorageObject openRange(String path, long offset, long length) throws IOException {
+    UUID id = UUID.fromString(path);
+    FileContent content = fileContentRepository.findById(id)
+        .orElseThrow(() -> new IOException("File not found: " + path));
+
+    if (content.getChunkCount() == null) {
+      return openLegacyBlob(id, path, content.getMimeType(), offset, length);
+    }
+
+    long size = content.getSizeBytes();
+    long start = Math.min(offset, size);
+    long rangeLength = Math.min(length, size - start);
+    if (rangeLength == 0) {
+      return new StorageObject(InputStream.nullInputStream(), 0, content.getMimeType());
+    }
+
+    int chunk = content.getChunkSize();
+    long firstChunk = start / chunk;
+    long lastChunk = (start + rangeLength - 1) / chunk;
+
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      // Sans autocommit, le driver PostgreSQL lit le résultat par lots (curseur)
+      connection.setAutoCommit(false);
+
+      PreparedStatement statement = connection.prepareStatement(
+          "SELECT data FROM file_chunks WHERE file_id = ? AND chunk_index BETWEEN ? AND ? ORDER BY chunk_index");
+      statement.setFetchSize(1);
+      statement.setObject(1, id);
+      statement.setLong(2, firstChunk);
+      statement.setLong(3, lastChunk);
+      ResultSet resultSet = statement.executeQuery();
+
+      InputStream stream = new ChunkCursorInputStream(resultSet, connection, (int) (start - firstChunk * chunk),
+          rangeLength);
+      return new StorageObject(stream, rangeLength, content.getMimeType());
+    } catch (SQLException e) {
+      releaseConnection(connection);
+      throw new IOException("Failed to read file: " + path, e);
     }
+  }
+
+  /**
+   * Lecture streaming d'un fichier historique : la colonne {@code data} est un
+   * large object PostgreSQL, lisible uniquement dans une transaction.
+   */
+  private StorageObject openLegacyBlob(UUID id, String path, String mimeType, long offset, long length)
+      throws IOException {
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      connection.setAutoCommit(false);
 
-    int originalWidth = originalImage.getWidth();
-    int originalHeight = originalImage.getHeight();
-    int newWidth = originalWidth;
-    int newHeight = originalHeight;
+      PreparedStatement statement = connection.prepareStatement("SELECT data FROM file_contents WHERE id = ?");
+      statement.setObject(1, id);
+      ResultSet resultSet = statement.executeQuery();
+      if (!resultSet.next()) {
+        throw new IOException("File not found: " + path);
+      }
 
-    if (originalWidth > PREVIEW_MAX_WIDTH) {
-      newWidth = PREVIEW_MAX_WIDTH;
-      newHeight = (int) ((double) originalHeight * PREVIEW_MAX_WIDTH / originalWidth);
+      Blob blob = resultSet.getBlob("data");
+      long size = blob.length();
+      long start = Math.min(offset, size);
+      long rangeLength = Math.min(length, size - start);
+      InputStream stream = new BlobInputStream(blob, start, rangeLength, connection);
+      return new StorageObject(stream, rangeLength, mimeType);
+    } catch (SQLException | IOException e) {
+      releaseConnection(connection);
+      throw e instanceof IOException ? (IOException) e : new IOException("Failed to read file: " + path, e);
     }
+  }
 
-    BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-    Graphics2D g = resizedImage.createGraphics();
-    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-    g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
+  private static void releaseConnection(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.rollback();
+      connection.setAutoCommit(true);
+    } catch (SQLException ignored) {
+      // La connexion est rendue au pool quoi qu'il arrive
+    } finally {
+      try {
+        connection.close();
+      } catch (SQLException ignored) {
+      }
+    }
+  }
 
-    // Watermark Logic
-    if (watermarkEnabled && watermarkText != null && !watermarkText.trim().isEmpty()) {
-      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+  /**
+   * Flux sur un blob qui libère la transaction et la connexion à la fermeture
+   */
+  private static class BlobInputStream extends FilterInputStream {
 
-      // Font setup: proportional to width
-      int fontSize = Math.max(20, newWidth / 25);
-      Font font = new Font("Serif", Font.BOLD, fontSize); // Serif looks more "premium" often, or SansSerif
-      g.setFont(font);
+    private final Blob blob;
+    private final Connection connection;
+    private boolean closed;
 
-      FontMetrics metrics = g.getFontMetrics(font);
-      int textWidth = metrics.stringWidth(watermarkText);
-      int textHeight = metrics.getHeight();
+    BlobInputStream(Blob blob, long offset, long length, Connection connection) throws SQLException {
+      super(length == 0 ? InputStream.nullInputStream() : blob.getBinaryStream(offset + 1, length));
+      this.blob = blob;
+      this.connection = connection;
+    }
 
-      // Position: Bottom Right with padding
-      int x = newWidth - textWidth - 30;
-      int y = newHeight - 30;
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        super.close();
+        blob.free();
+      } catch (SQLException e) {
+        throw new IOException("Failed to release blob", e);
+      } finally {
+        releaseConnection(connection);
+      }
+    }
+  }
 
-      // Ensure it stays within bounds
-      if (x < 10)
-        x = 10;
-      if (y < textHeight)
-        y = textHeight + 10;
+  /**
+   * Flux qui parcourt les morceaux d'un fichier au fil de la lecture, en
+   * ne gardant qu'un morceau en mémoire
+   */
+  private static class ChunkCursorInputStream extends InputStream {
 
-      // Draw Shadow/Outline for visibility on all backgrounds
-      g.setColor(new Color(0, 0, 0, 100)); // Semi-transparent black
-      g.drawString(watermarkText, x + 2, y + 2);
+    private final ResultSet resultSet;
+    private final Connection connection;
+    private byte[] chunk;
+    private int position;
+    private long remaining;
+    private boolean closed;
 
-      // Draw Text
-      g.setColor(new Color(255, 255, 255, 180)); // Semi-transparent white
-      g.drawString(watermarkText, x, y);
+    ChunkCursorInputStream(ResultSet resultSet, Connection connection, int firstChunkOffset, long length) {
+      this.resultSet = resultSet;
+      this.connection = connection;
+      this.position = firstChunkOffset;
+      this.remaining = length;
     }
 
-    g.dispose();
+    private boolean ensureChunk() throws IOException {
+      if (remaining <= 0 || closed) {
+        return false;
+      }
+      if (chunk != null && position < chunk.length) {
+        return true;
+      }
+      try {
+        if (!resultSet.next()) {
+          throw new IOException("File is truncated: missing chunk");
+        }
+        int skip = chunk == null ? position : 0; // décalage dans le premier morceau seulement
+        chunk = resultSet.getBytes(1);
+        position = skip;
+        return position < chunk.length || ensureChunk();
+      } catch (SQLException e) {
+        throw new IOException("Failed to read chunk", e);
+      }
+    }
 
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ImageIO.write(resizedImage, "jpg", baos); // Default to jpg for preview
+    @Override
+    public int read() throws IOException {
+      if (!ensureChunk()) {
+        return -1;
+      }
+      remaining--;
+      return chunk[position++] & 0xFF;
+    }
 
-    FileContent content = new FileContent();
-    content.setData(baos.toByteArray());
-    content.setMimeType("image/jpeg");
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureChunk()) {
+        return -1;
+      }
+      int count = (int) Math.min(Math.min(len, chunk.length - position), remaining);
+      System.arraycopy(chunk, position, b, off, count);
+      position += count;
+      remaining -= count;
+      return count;
+    }
 
-    content = fileContentRepository.save(content);
-    return content.getId().toString();
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      chunk = null;
+      releaseConnection(connection);
+    }
   }
 
-  @Override
-  public byte[] getOriginalFile(String path) throws IOException {
-    UUID id = UUID.fromString(path);
-    return fileContentRepository.findById(id)
-        .map(FileContent::getData)
-        .orElseThrow(() -> new IOException("File not found: " + path));
+  /**
+   * Transporte une IOException hors du callback transactionnel
+   */
+  private static class StorageWriteException extends RuntimeException {
+    StorageWriteException(IOException cause) {
+      super(cause);
+    }
   }
 
   @Override
-  public byte[] getPreviewFile(String path) throws IOException {
-    return getOriginalFile(path);
+  public long getFileSize(String path) throws IOException {
+    UUID id;
+    try {
+      id = UUID.fromString(path);
+    } catch (IllegalArgumentException e) {
+      throw new NoSuchFileException(path);
+    }
+    FileContent content = fileContentRepository.findById(id)
+        .orElseThrow(() -> new NoSuchFileException(path));
+    if (content.getSizeBytes() != null) {
+      return content.getSizeBytes();
+    }
+    try (StorageObject object = openRange(path, 0, Long.MAX_VALUE)) {
+      return object.getContentLength();
+    }
   }
 
   @Override
   public void deleteFile(String path) throws IOException {
     try {
       UUID id = UUID.fromString(path);
+      // Les morceaux sont supprimés en cascade (clé étrangère ON DELETE CASCADE)
       fileContentRepository.deleteById(id);
     } catch (IllegalArgumentException e) {
       // Check if it's a legacy file path (local storage) and ignore or handle
     }
   }
 
+  @Override
+  public List<String> deleteFiles(Collection<String> paths) {
+    List<String> failed = new ArrayList<>();
+    for (String path : paths) {
+      try {
+        deleteFile(path);
+      } catch (IOException | RuntimeException e) {
+        failed.add(path);
+      }
+    }
+    return failed;
+  }
+
+  @Override
+  public int deleteFolder(String folder, int maxKeys) {
+    // Les fichiers sont identifiés par un UUID, sans notion de dossier
+    return 0;
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) {
+    return List.of();
+  }
+
   @Override
   public String generatePresignedUploadUrl(String objectKey, String contentType) {
     throw new UnsupportedOperationException("Database storage does not support presigned URLs");
@@ -135,4 +407,9 @@ public class DatabaseStorageService implements StorageService {
   public String generatePresignedDownloadUrl(String objectKey) {
     throw new UnsupportedOperationException("Database storage does not support presigned URLs");
   }
+
+  @Override
+  public Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys) {
+    throw new UnsupportedOperationException("Database storage does not support presigned URLs");
+  }
 }
@@ -0,0 +1,529 @@
+package com.senalbum.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Cache disque en lecture (read-through) devant un autre StorageService.
+ * Chaque objet est copié dans un fichier local (en-tête + contenu) puis servi
+ * par memory-mapping : les lectures suivantes ne touchent ni le réseau ni le
+ * heap. Le cache est borné en octets (LRU), vérifie le CRC32 des fichiers
+ * retrouvés au démarrage et reconstruit son index à partir du disque.
+ */
+public class DiskCacheStorageService implements StorageService {
+
+  private static final Logger log = LoggerFactory.getLogger(DiskCacheStorageService.class);
+
+  private static final int MAGIC = 0x53414331; // "SAC1"
+  private static final String ENTRY_SUFFIX = ".bin";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final StorageService delegate;
+  private final Path root;
+  private final long maxBytes;
+  private final long maxObjectBytes;
+
+  // Index LRU (ordre d'accès) : protégé par son propre verrou
+  private final LinkedHashMap<String, CacheEntry> index = new LinkedHashMap<>(256, 0.75f, true);
+  private long totalBytes;
+
+  // Un seul téléchargement par clé quand plusieurs requêtes ratent le cache en même temps
+  private final Map<String, CompletableFuture<CacheEntry>> loading = new ConcurrentHashMap<>();
+
+  public DiskCacheStorageService(StorageService delegate, String path, long maxBytes, long maxObjectBytes) {
+    this.delegate = delegate;
+    this.root = Paths.get(path).toAbsolutePath().normalize();
+    this.maxBytes = maxBytes;
+    this.maxObjectBytes = Math.min(maxObjectBytes, Integer.MAX_VALUE - 64 * 1024);
+  }
+
+  /**
+   * Reconstruit l'index à partir des fichiers présents sur le disque. Les
+   * fichiers temporaires et les en-têtes invalides sont supprimés ; le CRC est
+   * contrôlé à la première lecture de chaque entrée.
+   */
+  public void init() throws IOException {
+    Files.createDirectories(root);
+    List<Path> files = new ArrayList<>();
+    try (Stream<Path> walk = Files.walk(root)) {
+      walk.filter(Files::isRegularFile).forEach(files::add);
+    }
+    files.sort(Comparator.comparingLong(DiskCacheStorageService::lastModified));
+
+    int restored = 0;
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      if (!name.endsWith(ENTRY_SUFFIX)) {
+        deleteQuietly(file);
+        continue;
+      }
+      try {
+        RestoredEntry restoredEntry = readHeader(file);
+        if (restoredEntry == null) {
+          deleteQuietly(file);
+          continue;
+        }
+        put(restoredEntry.key, restoredEntry.entry);
+        restored++;
+      } catch (IOException e) {
+        deleteQuietly(file);
+      }
+    }
+    log.info("Disk cache ready at {}: {} entries, {} bytes", root, restored, totalBytes);
+  }
+
+  @Override
+  public StorageObject openOriginalFile(String path) throws IOException {
+    return open(path, false);
+  }
+
+  @Override
+  public StorageObject openPreviewFile(String path) throws IOException {
+    return open(path, true);
+  }
+
+  @Override
+  public byte[] getOriginalFile(String path) throws IOException {
+    try (StorageObject object = openOriginalFile(path)) {
+      return object.getInputStream().readAllBytes();
+    }
+  }
+
+  @Override
+  public byte[] getPreviewFile(String path) throws IOException {
+    try (StorageObject object = openPreviewFile(path)) {
+      return object.getInputStream().readAllBytes();
+    }
+  }
+
+  @Override
+  public StorageObject openRange(String path, long offset, long length) throws IOException {
+    // Une plage ne remplit pas le cache, mais en profite si l'objet y est déjà
+    CacheEntry entry = lookup(path);
+    if (entry != null) {
+      StorageObject cached = map(path, entry, offset, length);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    return delegate.openRange(path, offset, length);
+  }
+
+  @Override
+  public long getFileSize(String path) throws IOException {
+    CacheEntry entry = lookup(path);
+    return entry != null ? entry.length : delegate.getFileSize(path);
+  }
+
+  @Override
+  public void deleteFile(String path) throws IOException {
+    invalidate(path);
+    delegate.deleteFile(path);
+  }
+
+  @Override
+  public List<String> deleteFiles(Collection<String> paths) {
+    paths.forEach(this::invalidate);
+    return delegate.deleteFiles(paths);
+  }
+
+  @Override
+  public int deleteFolder(String folder, int maxKeys) throws IOException {
+    List<String> cached = new ArrayList<>();
+    synchronized (index) {
+      for (String path : index.keySet()) {
+        if (path.startsWith(folder + "/")) {
+          cached.add(path);
+        }
+      }
+    }
+    cached.forEach(this::invalidate);
+    return delegate.deleteFolder(folder, maxKeys);
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) throws IOException {
+    return delegate.listFiles(prefix, startAfter, maxKeys);
+  }
+
+  @Override
+  public String saveOriginal(MultipartFile file, String albumId) throws IOException {
+    return delegate.saveOriginal(file, albumId);
+  }
+
+  @Override
+  public String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
+      throws IOException {
+    return delegate.savePreview(file, albumId, watermarkEnabled, watermarkText);
+  }
+
+  @Override
+  public String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+      throws IOException {
+    return delegate.saveContent(folder, filename, data, length, contentType);
+  }
+
+  @Override
+  public String generatePresignedUploadUrl(String objectKey, String contentType) {
+    return delegate.generatePresignedUploadUrl(objectKey, contentType);
+  }
+
+  @Override
+  public String generatePresignedDownloadUrl(String objectKey) {
+    return delegate.generatePresignedDownloadUrl(objectKey);
+  }
+
+  @Override
+  public Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys) {
+    return delegate.generatePresignedDownloadUrls(objectKeys);
+  }
+
+  private StorageObject open(String path, boolean preview) throws IOException {
+    CacheEntry entry = lookup(path);
+    if (entry != null) {
+      StorageObject cached = map(path, entry, 0, Long.MAX_VALUE);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    CompletableFuture<CacheEntry> mine = new CompletableFuture<>();
+    CompletableFuture<CacheEntry> existing = loading.putIfAbsent(path, mine);
+    if (existing != null) {
+      // Un autre thread télécharge déjà cet objet : on attend son résultat
+      try {
+        CacheEntry loaded = existing.join();
+        if (loaded != null) {
+          StorageObject cached = map(path, loaded, 0, Long.MAX_VALUE);
+          if (cached != null) {
+            return cached;
+          }
+        }
+      } catch (RuntimeException e) {
+        // Échec du téléchargement partagé : lecture directe ci-dessous
+      }
+      return preview ? delegate.openPreviewFile(path) : delegate.openOriginalFile(path);
+    }
+
+    try {
+      StorageObject source = preview ? delegate.openPreviewFile(path) : delegate.openOriginalFile(path);
+      if (source.getContentLength() < 0 || source.getContentLength() > maxObjectBytes) {
+        mine.complete(null);
+        return source;
+      }
+      CacheEntry filled = fill(path, source);
+      mine.complete(filled);
+      StorageObject cached = map(path, filled, 0, Long.MAX_VALUE);
+      if (cached != null) {
+        return cached;
+      }
+      // Entrée déjà évincée (cache plus petit que l'objet) : lecture directe
+      return preview ? delegate.openPreviewFile(path) : delegate.openOriginalFile(path);
+    } catch (IOException | RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(path, mine);
+    }
+  }
+
+  /**
+   * Copie l'objet dans un fichier temporaire en calculant son CRC, écrit
+   * l'en-tête puis renomme le fichier atomiquement vers son emplacement
+   */
+  private CacheEntry fill(String path, StorageObject source) throws IOException {
+    byte[] keyBytes = path.getBytes(StandardCharsets.UTF_8);
+    String contentType = source.getContentType() != null ? source.getContentType() : "";
+    byte[] typeBytes = contentType.getBytes(StandardCharsets.UTF_8);
+    int headerSize = 4 + 4 + 8 + 4 + keyBytes.length + 4 + typeBytes.length;
+
+    Path target = fileFor(path);
+    Files.createDirectories(target.getParent());
+    Path temp = Files.createTempFile(target.getParent(), ".fill-", TEMP_SUFFIX);
+    long total = 0;
+    CRC32 crc = new CRC32();
+    try {
+      try (StorageObject in = source;
+          FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        out.position(headerSize);
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int n;
+        while ((n = in.getInputStream().read(buffer)) > 0) {
+          crc.update(buffer, 0, n);
+          writeFully(out, ByteBuffer.wrap(buffer, 0, n));
+          total += n;
+        }
+        if (total != source.getContentLength()) {
+          throw new IOException("Truncated read while caching " + path);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC).putInt((int) crc.getValue()).putLong(total)
+            .putInt(keyBytes.length).put(keyBytes)
+            .putInt(typeBytes.length).put(typeBytes);
+        header.flip();
+        out.position(0);
+        writeFully(out, header);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      deleteQuietly(temp);
+      throw e;
+    }
+
+    CacheEntry entry = new CacheEntry(target, headerSize, total, (int) crc.getValue(),
+        contentType.isEmpty() ? null : contentType, true);
+    put(path, entry);
+    return entry;
+  }
+
+  /**
+   * Ouvre une entrée par memory-mapping. Retourne null si le fichier a
+   * disparu ou si son CRC ne correspond pas (l'entrée est alors invalidée).
+   */
+  private StorageObject map(String path, CacheEntry entry, long offset, long length) {
+    try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+      if (channel.size() != entry.payloadOffset + entry.length) {
+        invalidate(path);
+        return null;
+      }
+      // Le mapping reste valide après la fermeture du canal (et après une éviction)
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, entry.payloadOffset, entry.length);
+      if (!entry.verified) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != entry.crc) {
+          log.warn("Disk cache entry failed integrity check, dropping it: {}", path);
+          invalidate(path);
+          return null;
+        }
+        entry.verified = true;
+      }
+      int start = (int) Math.min(offset, entry.length);
+      int rangeLength = (int) Math.min(length, entry.length - start);
+      ByteBuffer slice = buffer.slice(start, rangeLength);
+      return new StorageObject(new ByteBufferInputStream(slice), rangeLength, entry.contentType);
+    } catch (IOException e) {
+      invalidate(path);
+      return null;
+    }
+  }
+
+  private CacheEntry lookup(String path) {
+    synchronized (index) {
+      return index.get(path);
+    }
+  }
+
+  private void put(String path, CacheEntry entry) {
+    List<Path> victims = new ArrayList<>();
+    synchronized (index) {
+      CacheEntry previous = index.put(path, entry);
+      if (previous != null) {
+        totalBytes -= previous.fileSize();
+      }
+      totalBytes += entry.fileSize();
+      Iterator<Map.Entry<String, CacheEntry>> it = index.entrySet().iterator();
+      while (totalBytes > maxBytes && it.hasNext()) {
+        Map.Entry<String, CacheEntry> eldest = it.next();
+        if (eldest.getValue() == entry) {
+          continue;
+        }
+        it.remove();
+        totalBytes -= eldest.getValue().fileSize();
+        victims.add(eldest.getValue().file);
+      }
+    }
+    // Les lecteurs en cours gardent leur mapping : la suppression ne les gêne pas
+    victims.forEach(DiskCacheStorageService::deleteQuietly);
+  }
+
+  private void invalidate(String path) {
+    CacheEntry removed;
+    synchronized (index) {
+      removed = index.remove(path);
+      if (removed != null) {
+        totalBytes -= removed.fileSize();
+      }
+    }
+    deleteQuietly(removed != null ? removed.file : fileFor(path));
+  }
+
+  private RestoredEntry readHeader(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer fixed = ByteBuffer.allocate(20);
+      if (size < 24 || channel.read(fixed, 0) < 20) {
+        return null;
+      }
+      fixed.flip();
+      if (fixed.getInt() != MAGIC) {
+        return null;
+      }
+      int crc = fixed.getInt();
+      long length = fixed.getLong();
+      int keyLength = fixed.getInt();
+      if (keyLength <= 0 || keyLength > 4096 || size < 24L + keyLength) {
+        return null;
+      }
+      ByteBuffer rest = ByteBuffer.allocate(keyLength + 4);
+      channel.read(rest, 20);
+      rest.flip();
+      byte[] keyBytes = new byte[keyLength];
+      rest.get(keyBytes);
+      int typeLength = rest.getInt();
+      if (typeLength < 0 || typeLength > 1024) {
+        return null;
+      }
+      ByteBuffer type = ByteBuffer.allocate(typeLength);
+      channel.read(type, 24L + keyLength);
+      int headerSize = 24 + keyLength + typeLength;
+      if (size != headerSize + length) {
+        return null;
+      }
+      String contentType = new String(type.array(), StandardCharsets.UTF_8);
+      CacheEntry entry = new CacheEntry(file, headerSize, length, crc,
+          contentType.isEmpty() ? null : contentType, false);
+      return new RestoredEntry(new String(keyBytes, StandardCharsets.UTF_8), entry);
+    }
+  }
+
+  /**
+   * Fichier de cache d'une clé : hash SHA-256, réparti dans 256 sous-dossiers
+   */
+  private Path fileFor(String path) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+      String hex = HexFormat.of().formatHex(digest);
+      return root.resolve(hex.substring(0, 2)).resolve(hex + ENTRY_SUFFIX);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Could not delete disk cache file {}: {}", file, e.getMessage());
+    }
+  }
+
+  private static class CacheEntry {
+    final Path file;
+    final int payloadOffset;
+    final long length;
+    final int crc;
+    final String contentType;
+    volatile boolean verified;
+
+    CacheEntry(Path file, int payloadOffset, long length, int crc, String contentType, boolean verified) {
+      this.file = file;
+      this.payloadOffset = payloadOffset;
+      this.length = length;
+      this.crc = crc;
+      this.contentType = contentType;
+      this.verified = verified;
+    }
+
+    long fileSize() {
+      return payloadOffset + length;
+    }
+  }
+
+  private static class RestoredEntry {
+    final String key;
+    final CacheEntry entry;
+
+    RestoredEntry(String key, CacheEntry entry) {
+      this.key = key;
+      this.entry = entry;
+    }
+  }
+
+  /**
+   * Flux de lecture sur un buffer mappé
+   */
+  private static class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
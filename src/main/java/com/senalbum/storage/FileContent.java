@@ -5,7 +5,6 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,6 +12,12 @@ import lombok.NoArgsConstructor;
 
 import java.util.UUID;
 
+/**
+ * Métadonnées d'un fichier stocké en base. Le contenu est découpé dans la
+ * table {@code file_chunks} ; les fichiers historiques gardent leur contenu
+ * dans la colonne {@code data}, volontairement non mappée pour ne jamais le
+ * charger en mémoire avec l'entité.
+ */
 @Entity
 @Table(name = "file_contents")
 @Data
@@ -24,10 +29,15 @@ public class FileContent {
   @GeneratedValue(strategy = GenerationType.UUID)
   private UUID id;
 
-  @Lob
-  @Column(nullable = false)
-  private byte[] data;
-
   @Column(name = "mime_type")
   private String mimeType;
+
+  @Column(name = "size_bytes")
+  private Long sizeBytes;
+
+  @Column(name = "chunk_size")
+  private Integer chunkSize;
+
+  @Column(name = "chunk_count")
+  private Integer chunkCount; // null pour les fichiers historiques (large object)
 }
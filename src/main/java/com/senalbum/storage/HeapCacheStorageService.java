@@ -0,0 +1,208 @@
+package com.senalbum.storage;
+
+import com.senalbum.storage.dto.CacheStatsResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache mémoire des petits objets chauds (covers, previews, logos de marque)
+ * devant n'importe quel StorageService. Chaque classe d'objets a son propre
+ * budget en octets, ce qui évite qu'un flux de fichiers lus une seule fois
+ * chasse les covers des albums populaires ; une classe à 0 octet n'est pas
+ * mise en cache.
+ */
+public class HeapCacheStorageService implements StorageService {
+
+  /**
+   * Classe d'objets : PREVIEW et ORIGINAL suivent la méthode de lecture, les
+   * covers et les éléments de marque sont lus par openCoverFile et
+   * openBrandFile
+   */
+  public enum ObjectClass {
+    COVER, PREVIEW, BRAND, ORIGINAL
+  }
+
+  private final StorageService delegate;
+  private final Map<ObjectClass, TinyLfuCache> caches = new EnumMap<>(ObjectClass.class);
+
+  /**
+   * @param delegate      Le stockage sous-jacent
+   * @param budgets       Taille maximale en octets par classe d'objets
+   * @param maxEntryBytes Taille maximale d'un objet mis en cache
+   */
+  public HeapCacheStorageService(StorageService delegate, Map<ObjectClass, Long> budgets, long maxEntryBytes) {
+    this.delegate = delegate;
+    budgets.forEach((objectClass, maxBytes) -> {
+      if (maxBytes > 0) {
+        caches.put(objectClass, new TinyLfuCache(objectClass.name().toLowerCase(), maxBytes, maxEntryBytes));
+      }
+    });
+  }
+
+  /**
+   * Statistiques de chaque cache actif (hits, misses, évictions, refus)
+   */
+  public List<CacheStatsResponse> getStats() {
+    List<CacheStatsResponse> stats = new ArrayList<>();
+    caches.values().forEach(cache -> stats.add(cache.stats()));
+    return stats;
+  }
+
+  @Override
+  public StorageObject openOriginalFile(String path) throws IOException {
+    return open(path, ObjectClass.ORIGINAL, false);
+  }
+
+  @Override
+  public StorageObject openPreviewFile(String path) throws IOException {
+    return open(path, ObjectClass.PREVIEW, true);
+  }
+
+  /**
+   * Ouvre la couverture d'un album (lue comme une preview), avec le budget
+   * des covers
+   */
+  public StorageObject openCoverFile(String path) throws IOException {
+    return open(path, ObjectClass.COVER, true);
+  }
+
+  /**
+   * Ouvre un fichier public de marque (logo, bannière, photo de profil), avec
+   * le budget des éléments de marque
+   */
+  public StorageObject openBrandFile(String path) throws IOException {
+    return open(path, ObjectClass.BRAND, false);
+  }
+
+  @Override
+  public byte[] getOriginalFile(String path) throws IOException {
+    try (StorageObject object = openOriginalFile(path)) {
+      return object.getInputStream().readAllBytes();
+    }
+  }
+
+  @Override
+  public byte[] getPreviewFile(String path) throws IOException {
+    try (StorageObject object = openPreviewFile(path)) {
+      return object.getInputStream().readAllBytes();
+    }
+  }
+
+  @Override
+  public StorageObject openRange(String path, long offset, long length) throws IOException {
+    for (TinyLfuCache cache : caches.values()) {
+      TinyLfuCache.CachedContent cached = cache.peek(path);
+      if (cached != null) {
+        int start = (int) Math.min(offset, cached.data.length);
+        int rangeLength = (int) Math.min(length, cached.data.length - start);
+        return new StorageObject(new ByteArrayInputStream(cached.data, start, rangeLength), rangeLength,
+            cached.contentType);
+      }
+    }
+    return delegate.openRange(path, offset, length);
+  }
+
+  @Override
+  public long getFileSize(String path) throws IOException {
+    for (TinyLfuCache cache : caches.values()) {
+      TinyLfuCache.CachedContent cached = cache.peek(path);
+      if (cached != null) {
+        return cached.data.length;
+      }
+    }
+    return delegate.getFileSize(path);
+  }
+
+  @Override
+  public void deleteFile(String path) throws IOException {
+    caches.values().forEach(cache -> cache.invalidate(path));
+    delegate.deleteFile(path);
+  }
+
+  @Override
+  public List<String> deleteFiles(Collection<String> paths) {
+    for (String path : paths) {
+      caches.values().forEach(cache -> cache.invalidate(path));
+    }
+    return delegate.deleteFiles(paths);
+  }
+
+  @Override
+  public int deleteFolder(String folder, int maxKeys) throws IOException {
+    caches.values().forEach(cache -> cache.invalidatePrefix(folder + "/"));
+    return delegate.deleteFolder(folder, maxKeys);
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) throws IOException {
+    return delegate.listFiles(prefix, startAfter, maxKeys);
+  }
+
+  @Override
+  public String saveOriginal(MultipartFile file, String albumId) throws IOException {
+    return delegate.saveOriginal(file, albumId);
+  }
+
+  @Override
+  public String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
+      throws IOException {
+    return delegate.savePreview(file, albumId, watermarkEnabled, watermarkText);
+  }
+
+  @Override
+  public String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+      throws IOException {
+    return delegate.saveContent(folder, filename, data, length, contentType);
+  }
+
+  @Override
+  public String generatePresignedUploadUrl(String objectKey, String contentType) {
+    return delegate.generatePresignedUploadUrl(objectKey, contentType);
+  }
+
+  @Override
+  public String generatePresignedDownloadUrl(String objectKey) {
+    return delegate.generatePresignedDownloadUrl(objectKey);
+  }
+
+  @Override
+  public Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys) {
+    return delegate.generatePresignedDownloadUrls(objectKeys);
+  }
+
+  private StorageObject open(String path, ObjectClass objectClass, boolean preview) throws IOException {
+    TinyLfuCache cache = caches.get(objectClass);
+    if (cache == null) {
+      return preview ? delegate.openPreviewFile(path) : delegate.openOriginalFile(path);
+    }
+
+    TinyLfuCache.CachedContent cached = cache.get(path);
+    if (cached != null) {
+      return toStorageObject(cached);
+    }
+
+    StorageObject source = preview ? delegate.openPreviewFile(path) : delegate.openOriginalFile(path);
+    if (!cache.accepts(source.getContentLength())) {
+      return source;
+    }
+    byte[] data;
+    try (StorageObject in = source) {
+      data = in.getInputStream().readAllBytes();
+    }
+    TinyLfuCache.CachedContent content = new TinyLfuCache.CachedContent(data, source.getContentType());
+    cache.put(path, content);
+    return toStorageObject(content);
+  }
+
+  private static StorageObject toStorageObject(TinyLfuCache.CachedContent content) {
+    return new StorageObject(new ByteArrayInputStream(content.data), content.data.length, content.contentType);
+  }
+}
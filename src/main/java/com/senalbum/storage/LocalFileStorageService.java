@@ -0,0 +1,317 @@
+package com.senalbum.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stockage sur le disque local (auto-hébergement, développement).
+ * Les écritures passent par un fichier temporaire renommé atomiquement : un
+ * lecteur ne voit jamais de fichier partiel. Les lectures sont adossées au
+ * fichier pour pouvoir être servies sans copie (sendfile).
+ */
+@Service
+public class LocalFileStorageService implements StorageService {
+
+  @Autowired
+  private PreviewRenderer previewRenderer;
+
+  @Value("${app.storage.local.path}")
+  private String rootPath;
+
+  @Value("${app.storage.local.original-dir}")
+  private String originalDir;
+
+  @Value("${app.storage.local.preview-dir}")
+  private String previewDir;
+
+  private Path root;
+
+  @PostConstruct
+  void init() {
+    root = Paths.get(rootPath).toAbsolutePath().normalize();
+  }
+
+  @Override
+  public String saveOriginal(MultipartFile file, String albumId) throws IOException {
+    return write(originalDir + "/" + albumId, file.getOriginalFilename(), file.getInputStream());
+  }
+
+  @Override
+  public String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
+      throws IOException {
+    byte[] preview = previewRenderer.render(file.getInputStream(), PreviewRenderer.PREVIEW_MAX_WIDTH,
+        watermarkEnabled, watermarkText);
+    return write(previewDir + "/" + albumId, file.getOriginalFilename(), new ByteArrayInputStream(preview));
+  }
+
+  @Override
+  public String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+      throws IOException {
+    return write(localFolder(folder), filename, data);
+  }
+
+  /**
+   * Les dossiers logiques "previews/..." et "albums/..." suivent les
+   * répertoires configurés
+   */
+  private String localFolder(String folder) {
+    if (folder.startsWith("previews/")) {
+      return previewDir + folder.substring("previews".length());
+    }
+    if (folder.startsWith("albums/")) {
+      return originalDir + folder.substring("albums".length());
+    }
+    return folder;
+  }
+
+  /**
+   * Écrit le flux dans un fichier temporaire du dossier cible, le synchronise
+   * sur disque puis le renomme atomiquement vers sa clé définitive
+   */
+  private String write(String folder, String filename, InputStream data) throws IOException {
+    String key = folder + "/" + UUID.randomUUID() + "-" + sanitize(filename);
+    Path target = resolve(key);
+    Files.createDirectories(target.getParent());
+    Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+    try {
+      try (InputStream in = data;
+          FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        OutputStream out = Channels.newOutputStream(channel);
+        in.transferTo(out);
+        channel.force(true);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    return key;
+  }
+
+  @Override
+  public byte[] getOriginalFile(String path) throws IOException {
+    return Files.readAllBytes(resolve(path));
+  }
+
+  @Override
+  public byte[] getPreviewFile(String path) throws IOException {
+    return getOriginalFile(path);
+  }
+
+  @Override
+  public StorageObject openOriginalFile(String path) throws IOException {
+    return openRange(path, 0, Long.MAX_VALUE);
+  }
+
+  @Override
+  public StorageObject openPreviewFile(String path) throws IOException {
+    return openOriginalFile(path);
+  }
+
+  @Override
+  public StorageObject openRange(String path, long offset, long length) throws IOException {
+    Path file = resolve(path);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      long start = Math.min(offset, size);
+      long rangeLength = Math.min(length, size - start);
+      channel.position(start);
+      InputStream in = new BoundedInputStream(Channels.newInputStream(channel), rangeLength);
+      return new StorageObject(in, rangeLength, URLConnection.guessContentTypeFromName(file.toString()), file,
+          start);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public long getFileSize(String path) throws IOException {
+    return Files.size(resolve(path));
+  }
+
+  @Override
+  public void deleteFile(String path) throws IOException {
+    Files.deleteIfExists(resolve(path));
+  }
+
+  @Override
+  public List<String> deleteFiles(Collection<String> paths) {
+    List<String> failed = new ArrayList<>();
+    for (String path : paths) {
+      try {
+        deleteFile(path);
+      } catch (IOException | RuntimeException e) {
+        failed.add(path);
+      }
+    }
+    return failed;
+  }
+
+  @Override
+  public int deleteFolder(String folder, int maxKeys) throws IOException {
+    Path dir = resolve(localFolder(folder));
+    if (!Files.isDirectory(dir)) {
+      return 0;
+    }
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(dir)) {
+      files = walk.filter(Files::isRegularFile).limit(maxKeys).collect(Collectors.toList());
+    }
+    for (Path file : files) {
+      Files.deleteIfExists(file);
+    }
+    if (files.isEmpty()) {
+      // Plus aucun fichier : on retire les dossiers vides
+      try (Stream<Path> walk = Files.walk(dir)) {
+        for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+    return files.size();
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) throws IOException {
+    String folder = localFolder(prefix);
+    Path dir = resolve(folder.endsWith("/") ? folder.substring(0, folder.length() - 1) : folder);
+    if (!Files.isDirectory(dir)) {
+      return List.of();
+    }
+    List<String> keys;
+    try (Stream<Path> walk = Files.walk(dir)) {
+      keys = walk.filter(Files::isRegularFile)
+          .map(path -> root.relativize(path).toString().replace('\\', '/'))
+          .filter(key -> startAfter == null || key.compareTo(startAfter) > 0)
+          .sorted()
+          .limit(maxKeys)
+          .collect(Collectors.toList());
+    }
+    List<StoredFile> files = new ArrayList<>();
+    for (String key : keys) {
+      Path file = resolve(key);
+      try {
+        files.add(new StoredFile(key, Files.size(file), Files.getLastModifiedTime(file).toInstant()));
+      } catch (NoSuchFileException e) {
+        // Supprimé entre-temps
+      }
+    }
+    return files;
+  }
+
+  @Override
+  public String generatePresignedUploadUrl(String objectKey, String contentType) {
+    throw new UnsupportedOperationException("Presigned URLs not supported by local storage");
+  }
+
+  @Override
+  public String generatePresignedDownloadUrl(String objectKey) {
+    throw new UnsupportedOperationException("Presigned URLs not supported by local storage");
+  }
+
+  @Override
+  public Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys) {
+    throw new UnsupportedOperationException("Presigned URLs not supported by local storage");
+  }
+
+  /**
+   * Résout une clé sous la racine du stockage ; les clés qui en sortiraient
+   * (../) sont refusées car elles peuvent venir d'une URL publique
+   */
+  private Path resolve(String key) throws IOException {
+    Path path = root.resolve(key).normalize();
+    if (!path.startsWith(root) || path.equals(root)) {
+      throw new IOException("Invalid storage path: " + key);
+    }
+    return path;
+  }
+
+  private static String sanitize(String filename) {
+    if (filename == null || filename.isBlank()) {
+      return "file";
+    }
+    return filename.replaceAll("[/\\\\\\x00]", "_");
+  }
+
+  /**
+   * Limite la lecture à la plage demandée
+   */
+  private static class BoundedInputStream extends FilterInputStream {
+
+    private long remaining;
+
+    BoundedInputStream(InputStream in, long limit) {
+      super(in);
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int b = super.read();
+      if (b >= 0) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int n = super.read(b, off, (int) Math.min(len, remaining));
+      if (n > 0) {
+        remaining -= n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(Math.min(n, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(super.available(), remaining);
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package com.senalbum.storage;
+
+import com.senalbum.storage.dto.StorageGcReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ramasse-miettes du stockage : supprime les fichiers qu'aucune ligne ne
+ * référence plus (URL d'upload jamais confirmée, cover remplacée, suppression
+ * en échec...). Les clés référencées sont chargées en flux dans un filtre de
+ * Bloom, puis le stockage est parcouru page par page : ni les clés de la base
+ * ni celles du stockage ne sont gardées en mémoire. Un fichier absent du
+ * filtre et plus vieux que le délai de grâce est revérifié en base avant
+ * d'être supprimé (une photo confirmée pendant le parcours est donc épargnée).
+ */
+@Component
+public class OrphanedObjectCollector {
+
+  private static final Logger logger = LoggerFactory.getLogger(OrphanedObjectCollector.class);
+
+  private static final String PUBLIC_FILE_URL_MARKER = "/api/public/files/";
+
+  // Colonnes qui portent un fichier du stockage sous forme d'URL ou de clé
+  private static final String PHOTOGRAPHER_URLS = "SELECT profile_picture_url, brand_logo_url, brand_cover_url"
+      + " FROM photographers WHERE profile_picture_url IS NOT NULL OR brand_logo_url IS NOT NULL"
+      + " OR brand_cover_url IS NOT NULL";
+
+  @Autowired
+  private StorageService storageService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Value("${app.storage.gc.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.storage.gc.dry-run:true}")
+  private boolean dryRun;
+
+  @Value("${app.storage.gc.prefixes:albums/,previews/,uploads/,blobs/}")
+  private List<String> prefixes;
+
+  @Value("${app.storage.gc.grace-hours:48}")
+  private long graceHours;
+
+  @Value("${app.storage.gc.page-size:1000}")
+  private int pageSize;
+
+  @Value("${app.storage.gc.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  private volatile StorageGcReport lastReport;
+
+  public StorageGcReport getLastReport() {
+    return lastReport;
+  }
+
+  @Scheduled(cron = "${app.storage.gc.cron:0 0 4 * * *}")
+  public void collect() {
+    if (!enabled) {
+      return;
+    }
+    StorageGcReport report = new StorageGcReport();
+    report.setStartedAt(Instant.now());
+    report.setDryRun(dryRun);
+    try {
+      run(report);
+    } catch (Exception e) {
+      report.setError(e.getMessage());
+      logger.warn("Storage garbage collection failed: {}", e.getMessage());
+    }
+    report.setFinishedAt(Instant.now());
+    lastReport = report;
+    logger.info("Storage garbage collection: {} objects scanned, {} orphans, {} deleted, {} bytes reclaimed",
+        report.getScannedObjects(), report.getOrphanObjects(), report.getDeletedObjects(),
+        report.getReclaimedBytes());
+  }
+
+  private void run(StorageGcReport report) throws Exception {
+    BloomFilter referenced = loadReferencedKeys(report);
+    report.setFilterBytes(referenced.sizeBytes());
+    Instant graceLimit = Instant.now().minus(Duration.ofHours(graceHours));
+
+    for (String prefix : prefixes) {
+      String startAfter = null;
+      List<StoredFile> page;
+      while (!(page = storageService.listFiles(prefix, startAfter, pageSize)).isEmpty()) {
+        Map<String, Long> candidates = new LinkedHashMap<>();
+        for (StoredFile file : page) {
+          report.setScannedObjects(report.getScannedObjects() + 1);
+          report.setScannedBytes(report.getScannedBytes() + file.getSize());
+          boolean old = file.getLastModified() != null && file.getLastModified().isBefore(graceLimit);
+          if (old && !referenced.mightContain(file.getKey())) {
+            candidates.put(file.getKey(), file.getSize());
+          }
+        }
+        startAfter = page.get(page.size() - 1).getKey();
+        if (!candidates.isEmpty()) {
+          deleteOrphans(candidates, report);
+        }
+      }
+    }
+  }
+
+  private void deleteOrphans(Map<String, Long> candidates, StorageGcReport report) {
+    candidates.keySet().removeAll(findReferenced(candidates.keySet()));
+    if (candidates.isEmpty()) {
+      return;
+    }
+    long bytes = candidates.values().stream().mapToLong(Long::longValue).sum();
+    report.setOrphanObjects(report.getOrphanObjects() + candidates.size());
+    report.setOrphanBytes(report.getOrphanBytes() + bytes);
+    if (dryRun) {
+      return;
+    }
+
+    Set<String> failed = new HashSet<>(storageService.deleteFiles(candidates.keySet()));
+    for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+      if (failed.contains(candidate.getKey())) {
+        report.setFailedObjects(report.getFailedObjects() + 1);
+      } else {
+        report.setDeletedObjects(report.getDeletedObjects() + 1);
+        report.setReclaimedBytes(report.getReclaimedBytes() + candidate.getValue());
+      }
+    }
+  }
+
+  /**
+   * Toutes les clés référencées, lues en flux (curseur côté serveur : la
+   * transaction désactive l'autocommit)
+   */
+  private BloomFilter loadReferencedKeys(StorageGcReport report) {
+    Long expected = jdbcTemplate.queryForObject(
+        "SELECT (SELECT COUNT(*) FROM photos) * 2 + (SELECT COUNT(*) FROM photo_renditions)"
+            + " + (SELECT COUNT(*) FROM albums) + (SELECT COUNT(*) FROM content_blobs)"
+            + " + (SELECT COUNT(*) FROM photographers) * 3",
+        Long.class);
+    // Marge pour les lignes ajoutées pendant le chargement
+    BloomFilter filter = new BloomFilter((expected != null ? expected : 0) + 1000, falsePositiveRate);
+
+    JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+    streaming.setFetchSize(pageSize);
+    transactionTemplate.executeWithoutResult(status -> {
+      for (String sql : List.of(
+          "SELECT original_path FROM photos",
+          "SELECT preview_path FROM photos",
+          "SELECT storage_key FROM photo_renditions",
+          "SELECT cover_image_path FROM albums WHERE cover_image_path IS NOT NULL",
+          "SELECT storage_key FROM content_blobs")) {
+        streaming.query(sql, resultSet -> {
+          filter.add(resultSet.getString(1));
+          report.setReferencedKeys(report.getReferencedKeys() + 1);
+        });
+      }
+    });
+    for (String key : loadUrlKeys()) {
+      filter.add(key);
+      report.setReferencedKeys(report.getReferencedKeys() + 1);
+    }
+    return filter;
+  }
+
+  /**
+   * Photo de profil, logo et couverture de marque : enregistrés sous forme
+   * d'URL publique (.../api/public/files/{clé}), d'URL du bucket ou de clé.
+   * Toutes les clés possibles sont retenues : mieux vaut épargner un
+   * orphelin que supprimer un fichier affiché.
+   */
+  private Set<String> loadUrlKeys() {
+    Set<String> keys = new HashSet<>();
+    jdbcTemplate.query(PHOTOGRAPHER_URLS, resultSet -> {
+      for (int column = 1; column <= 3; column++) {
+        String url = resultSet.getString(column);
+        if (url != null && !url.isBlank()) {
+          addUrlKeys(url.trim(), keys);
+        }
+      }
+    });
+    return keys;
+  }
+
+  private void addUrlKeys(String url, Set<String> keys) {
+    keys.add(url);
+    int marker = url.indexOf(PUBLIC_FILE_URL_MARKER);
+    if (marker >= 0) {
+      keys.add(UriUtils.decode(stripQuery(url.substring(marker + PUBLIC_FILE_URL_MARKER.length())),
+          StandardCharsets.UTF_8));
+      return;
+    }
+    // URL directe du bucket (présignée ou non) : la clé commence à l'un des préfixes parcourus
+    String path = UriUtils.decode(stripQuery(url), StandardCharsets.UTF_8);
+    for (String prefix : prefixes) {
+      int start = path.indexOf(prefix);
+      if (start >= 0) {
+        keys.add(path.substring(start));
+      }
+    }
+  }
+
+  private static String stripQuery(String url) {
+    int query = url.indexOf('?');
+    return query >= 0 ? url.substring(0, query) : url;
+  }
+
+  /**
+   * Revérification avant suppression, sur l'état courant de la base
+   * (URL de profil ou de marque posée pendant le parcours comprise)
+   */
+  private Set<String> findReferenced(Set<String> keys) {
+    Set<String> referenced = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+        "SELECT original_path FROM photos WHERE original_path IN (:keys)"
+            + " UNION SELECT preview_path FROM photos WHERE preview_path IN (:keys)"
+            + " UNION SELECT storage_key FROM photo_renditions WHERE storage_key IN (:keys)"
+            + " UNION SELECT cover_image_path FROM albums WHERE cover_image_path IN (:keys)"
+            + " UNION SELECT storage_key FROM content_blobs WHERE storage_key IN (:keys)",
+        Map.of("keys", new ArrayList<>(keys)), String.class));
+    for (String key : loadUrlKeys()) {
+      if (keys.contains(key)) {
+        referenced.add(key);
+      }
+    }
+    return referenced;
+  }
+}
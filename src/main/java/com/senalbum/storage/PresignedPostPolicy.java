@@ -0,0 +1,88 @@
+package com.senalbum.storage;
+
+import com.senalbum.storage.dto.PresignedPostResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Policy de POST navigateur (SigV4) couvrant tout un préfixe : une seule
+ * signature permet d'envoyer n'importe quel nombre de fichiers sous le
+ * dossier de l'album, chacun avec sa propre clé.
+ */
+@Component
+public class PresignedPostPolicy {
+
+  @Value("${wasabi.endpoint}")
+  private String endpoint;
+
+  @Value("${wasabi.region}")
+  private String region;
+
+  @Value("${wasabi.bucket}")
+  private String bucketName;
+
+  @Value("${wasabi.access-key}")
+  private String accessKey;
+
+  @Value("${wasabi.secret-key}")
+  private String secretKey;
+
+  private SigV4Signer signer;
+
+  @PostConstruct
+  void init() {
+    signer = new SigV4Signer(accessKey, secretKey, region);
+  }
+
+  /**
+   * @param keyPrefix         Préfixe imposé aux clés (ex : "albums/{id}/")
+   * @param contentTypePrefix Préfixe imposé au Content-Type (ex : "image/")
+   * @param maxBytes          Taille maximale de chaque fichier
+   * @param validitySeconds   Durée de validité de la policy
+   */
+  public PresignedPostResponse create(String keyPrefix, String contentTypePrefix, long maxBytes,
+      long validitySeconds) {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    Instant expiresAt = now.plusSeconds(validitySeconds);
+    String credential = signer.credential(now);
+    String date = SigV4Signer.timestamp(now);
+
+    String policy = "{\"expiration\":\"" + DateTimeFormatter.ISO_INSTANT.format(expiresAt) + "\","
+        + "\"conditions\":["
+        + "{\"bucket\":\"" + json(bucketName) + "\"},"
+        + "[\"starts-with\",\"$key\",\"" + json(keyPrefix) + "\"],"
+        + "[\"starts-with\",\"$Content-Type\",\"" + json(contentTypePrefix) + "\"],"
+        + "[\"content-length-range\",1," + maxBytes + "],"
+        + "{\"x-amz-algorithm\":\"" + SigV4Signer.ALGORITHM + "\"},"
+        + "{\"x-amz-credential\":\"" + json(credential) + "\"},"
+        + "{\"x-amz-date\":\"" + date + "\"}"
+        + "]}";
+    String encodedPolicy = Base64.getEncoder().encodeToString(policy.getBytes(StandardCharsets.UTF_8));
+
+    // Champs à recopier tels quels dans le formulaire, avant key, Content-Type et file
+    Map<String, String> fields = new LinkedHashMap<>();
+    fields.put("x-amz-algorithm", SigV4Signer.ALGORITHM);
+    fields.put("x-amz-credential", credential);
+    fields.put("x-amz-date", date);
+    fields.put("policy", encodedPolicy);
+    fields.put("x-amz-signature", signer.sign(now, encodedPolicy));
+
+    URI uri = URI.create(endpoint);
+    String url = uri.getScheme() + "://" + uri.getAuthority() + "/" + SigV4Signer.uriEncode(bucketName, false);
+    return new PresignedPostResponse(url, keyPrefix, fields, expiresAt);
+  }
+
+  private static String json(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -0,0 +1,160 @@
+package com.senalbum.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4FamilyHttpSigner;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.http.auth.spi.signer.HttpSigner;
+import software.amazon.awssdk.identity.spi.AwsCredentialsIdentity;
+import software.amazon.awssdk.utils.http.SdkHttpUtils;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * URLs de téléchargement pré-signées stables dans le temps. Le temps est
+ * découpé en fenêtres (15 min par défaut) et chaque URL est signée avec le
+ * début de sa fenêtre comme instant de signature : pour une clé, l'URL est
+ * identique d'une requête à l'autre (et d'une instance à l'autre) pendant
+ * toute la fenêtre, ce qui permet aux navigateurs et aux CDN de mettre les
+ * images en cache. Une URL servie reste valable au moins
+ * (validité - fenêtre) minutes. La signature est celle du SDK, avec une
+ * horloge figée sur le début de la fenêtre.
+ */
+@Component
+public class PresignedUrlCache {
+
+  @Value("${wasabi.endpoint}")
+  private String endpoint;
+
+  @Value("${wasabi.region}")
+  private String region;
+
+  @Value("${wasabi.bucket}")
+  private String bucketName;
+
+  @Value("${wasabi.access-key}")
+  private String accessKey;
+
+  @Value("${wasabi.secret-key}")
+  private String secretKey;
+
+  @Value("${wasabi.presign.download-validity-minutes:60}")
+  private long validityMinutes;
+
+  @Value("${wasabi.presign.window-minutes:15}")
+  private long windowMinutes;
+
+  @Value("${wasabi.presign.response-cache-control:private, max-age=3600, immutable}")
+  private String responseCacheControl;
+
+  @Value("${wasabi.presign.max-cached-urls:200000}")
+  private int maxCachedUrls;
+
+  private final Clock clock = Clock.systemUTC();
+
+  private final AwsV4HttpSigner signer = AwsV4HttpSigner.create();
+
+  private AwsCredentialsIdentity credentials;
+  private URI endpointUri;
+
+  // URLs de la fenêtre courante, remplacées en bloc au changement de fenêtre
+  private volatile UrlWindow current;
+
+  @PostConstruct
+  void init() {
+    if (windowMinutes >= validityMinutes) {
+      throw new IllegalStateException("wasabi.presign.window-minutes must be shorter than the URL validity");
+    }
+    credentials = AwsCredentialsIdentity.create(accessKey, secretKey);
+    endpointUri = URI.create(endpoint);
+  }
+
+  public String get(String objectKey) {
+    return getAll(List.of(objectKey)).get(objectKey);
+  }
+
+  /**
+   * URLs de plusieurs clés pour la fenêtre courante ; seules les clés pas
+   * encore vues dans la fenêtre sont signées
+   */
+  public Map<String, String> getAll(Collection<String> objectKeys) {
+    UrlWindow window = currentWindow();
+    Map<String, String> urls = new LinkedHashMap<>();
+    for (String key : objectKeys) {
+      String url = window.urls.get(key);
+      if (url == null) {
+        url = sign(key, window.start);
+        if (window.urls.size() < maxCachedUrls) {
+          window.urls.putIfAbsent(key, url);
+        }
+      }
+      urls.put(key, url);
+    }
+    return urls;
+  }
+
+  /**
+   * URL GET pré-signée en style chemin ({endpoint}/{bucket}/{key}), signée à
+   * l'instant signedAt
+   */
+  private String sign(String key, Instant signedAt) {
+    SdkHttpRequest.Builder request = SdkHttpRequest.builder()
+        .method(SdkHttpMethod.GET)
+        .uri(endpointUri)
+        .encodedPath("/" + SdkHttpUtils.urlEncodeIgnoreSlashes(bucketName) + "/"
+            + SdkHttpUtils.urlEncodeIgnoreSlashes(key));
+    if (!responseCacheControl.isBlank()) {
+      request.putRawQueryParameter("response-cache-control", responseCacheControl);
+    }
+    return signer.sign(r -> r
+        .identity(credentials)
+        .request(request.build())
+        .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, "s3")
+        .putProperty(AwsV4HttpSigner.REGION_NAME, region)
+        .putProperty(AwsV4HttpSigner.AUTH_LOCATION, AwsV4FamilyHttpSigner.AuthLocation.QUERY_STRING)
+        .putProperty(AwsV4HttpSigner.EXPIRATION_DURATION, Duration.ofMinutes(validityMinutes))
+        .putProperty(AwsV4HttpSigner.PAYLOAD_SIGNING_ENABLED, false)
+        .putProperty(AwsV4HttpSigner.DOUBLE_URL_ENCODE, false)
+        .putProperty(AwsV4HttpSigner.NORMALIZE_PATH, false)
+        .putProperty(HttpSigner.SIGNING_CLOCK, Clock.fixed(signedAt, ZoneOffset.UTC)))
+        .request().getUri().toString();
+  }
+
+  private UrlWindow currentWindow() {
+    long windowMillis = windowMinutes * 60_000;
+    long now = clock.millis();
+    Instant start = Instant.ofEpochMilli(now - now % windowMillis);
+    UrlWindow window = current;
+    if (window == null || !window.start.equals(start)) {
+      synchronized (this) {
+        window = current;
+        if (window == null || !window.start.equals(start)) {
+          window = new UrlWindow(start);
+          current = window;
+        }
+      }
+    }
+    return window;
+  }
+
+  private static class UrlWindow {
+    final Instant start;
+    final Map<String, String> urls = new ConcurrentHashMap<>();
+
+    UrlWindow(Instant start) {
+      this.start = start;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package com.senalbum.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Génère les previews JPEG (redimensionnement + filigrane de marque), quel que
+ * soit le backend de stockage utilisé.
+ * L'original n'est jamais décodé en pleine résolution quand une preview plus
+ * petite suffit : les dimensions sont lues dans l'en-tête, puis le décodeur
+ * sous-échantillonne directement à une taille proche de la cible.
+ */
+@Component
+public class PreviewRenderer {
+
+  public static final int PREVIEW_MAX_WIDTH = 1200;
+
+  public static final String PREVIEW_CONTENT_TYPE = "image/jpeg";
+
+  private static final int BUFFER_POOL_SIZE = 8;
+  private static final int INITIAL_BUFFER_BYTES = 512 * 1024;
+  private static final int MAX_POOLED_BUFFER_BYTES = 4 * 1024 * 1024;
+
+  // Tampons de sortie JPEG réutilisés d'une preview à l'autre
+  private final BlockingQueue<PreviewBuffer> buffers = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
+
+  private static final int WATERMARK_CACHE_SIZE = 128;
+
+  // Calques de filigrane (ARGB translucide) par marque et taille de police, en LRU
+  private final Map<String, WatermarkTile> watermarkTiles = new LinkedHashMap<>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, WatermarkTile> eldest) {
+      return size() > WATERMARK_CACHE_SIZE;
+    }
+  };
+
+  /**
+   * Redimensionne l'image source et applique le filigrane éventuel
+   *
+   * @param source           Le flux de l'image originale
+   * @param maxWidth         Largeur maximale de la preview
+   * @param watermarkEnabled Appliquer ou non le filigrane
+   * @param watermarkText    Texte du filigrane (nom de marque)
+   * @return Les bytes JPEG de la preview
+   */
+  public byte[] render(InputStream source, int maxWidth, boolean watermarkEnabled, String watermarkText)
+      throws IOException {
+    return render(decode(source, maxWidth), maxWidth, watermarkEnabled, watermarkText).getData();
+  }
+
+  /**
+   * Décode l'image originale, pour produire plusieurs déclinaisons d'un seul
+   * décodage. L'image obtenue fait au moins {@code targetWidth} de large (ou
+   * la largeur de l'original s'il est plus petit) : le décodeur ne garde
+   * qu'un pixel sur N, N étant le plus grand facteur qui reste au-dessus de
+   * la cible. Un 45 MP décodé pour une preview de 1200 px occupe ainsi
+   * quelques Mo au lieu de ~180 Mo.
+   *
+   * @param source      Le flux de l'image originale
+   * @param targetWidth Plus grande largeur qui sera produite à partir de l'image
+   */
+  public BufferedImage decode(InputStream source, int targetWidth) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+      Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+      if (readers == null || !readers.hasNext()) {
+        throw new IOException("Invalid image file");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        int width = reader.getWidth(0);
+        ImageReadParam param = reader.getDefaultReadParam();
+        int factor = targetWidth > 0 ? width / targetWidth : 1;
+        if (factor > 1) {
+          param.setSourceSubsampling(factor, factor, 0, 0);
+        }
+        BufferedImage image = reader.read(0, param);
+        if (image == null) {
+          throw new IOException("Invalid image file");
+        }
+        return image;
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Produit une déclinaison JPEG d'une image déjà décodée
+   *
+   * @param originalImage    L'image décodée
+   * @param maxWidth         Largeur maximale de la déclinaison
+   * @param watermarkEnabled Appliquer ou non le filigrane
+   * @param watermarkText    Texte du filigrane (nom de marque)
+   * @return Les bytes JPEG et les dimensions obtenues
+   */
+  public RenderedPreview render(BufferedImage originalImage, int maxWidth, boolean watermarkEnabled,
+      String watermarkText) throws IOException {
+    int originalWidth = originalImage.getWidth();
+    int originalHeight = originalImage.getHeight();
+    int newWidth = originalWidth;
+    int newHeight = originalHeight;
+
+    if (originalWidth > maxWidth) {
+      newWidth = maxWidth;
+      newHeight = (int) ((double) originalHeight * maxWidth / originalWidth);
+    }
+
+    BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = resizedImage.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    g.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
+
+    // Watermark Logic : calque pré-rendu, simplement composé sur la preview
+    if (watermarkEnabled && watermarkText != null && !watermarkText.trim().isEmpty()) {
+      WatermarkTile tile = watermarkTile(watermarkText, newWidth);
+
+      // Position: Bottom Right with padding
+      int x = newWidth - tile.textWidth - 30;
+      int y = newHeight - 30;
+
+      // Ensure it stays within bounds
+      if (x < 10)
+        x = 10;
+      if (y < tile.textHeight)
+        y = tile.textHeight + 10;
+
+      g.drawImage(tile.image, x, y - tile.ascent, null);
+    }
+
+    g.dispose();
+
+    return new RenderedPreview(encodeJpeg(resizedImage), newWidth, newHeight);
+  }
+
+  /**
+   * Calque du filigrane pour une marque et une largeur de preview, rendu une
+   * seule fois : la taille de police ne dépend que de la largeur
+   */
+  private WatermarkTile watermarkTile(String text, int width) {
+    int fontSize = Math.max(20, width / 25);
+    String key = fontSize + "|" + text;
+    synchronized (watermarkTiles) {
+      WatermarkTile tile = watermarkTiles.get(key);
+      if (tile != null) {
+        return tile;
+      }
+    }
+
+    WatermarkTile tile = renderWatermarkTile(text, fontSize);
+    synchronized (watermarkTiles) {
+      watermarkTiles.put(key, tile);
+    }
+    return tile;
+  }
+
+  private static WatermarkTile renderWatermarkTile(String text, int fontSize) {
+    Font font = new Font("Serif", Font.BOLD, fontSize); // Serif looks more "premium" often, or SansSerif
+
+    // Mesure sur un calque vide, avec les mêmes réglages que le rendu
+    BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D measure = scratch.createGraphics();
+    measure.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    FontMetrics metrics = measure.getFontMetrics(font);
+    int textWidth = metrics.stringWidth(text);
+    int textHeight = metrics.getHeight();
+    int ascent = metrics.getAscent();
+    measure.dispose();
+
+    // Marge de 2 px pour l'ombre décalée
+    BufferedImage image = new BufferedImage(Math.max(1, textWidth + 2), textHeight + 2,
+        BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    g.setFont(font);
+
+    // Draw Shadow/Outline for visibility on all backgrounds
+    g.setColor(new Color(0, 0, 0, 100)); // Semi-transparent black
+    g.drawString(text, 2, ascent + 2);
+
+    // Draw Text
+    g.setColor(new Color(255, 255, 255, 180)); // Semi-transparent white
+    g.drawString(text, 0, ascent);
+    g.dispose();
+
+    return new WatermarkTile(image, textWidth, textHeight, ascent);
+  }
+
+  /**
+   * Encode en JPEG dans un tampon du pool, en mémoire (pas de fichier cache
+   * ImageIO), puis copie le résultat à sa taille exacte
+   */
+  private byte[] encodeJpeg(BufferedImage image) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpg");
+    if (!writers.hasNext()) {
+      throw new IOException("No JPEG encoder available");
+    }
+    ImageWriter writer = writers.next();
+    PreviewBuffer buffer = borrowBuffer();
+    try {
+      try (ImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+        writer.setOutput(output);
+        writer.write(image);
+      }
+      return buffer.toByteArray();
+    } finally {
+      writer.dispose();
+      returnBuffer(buffer);
+    }
+  }
+
+  private PreviewBuffer borrowBuffer() {
+    PreviewBuffer buffer = buffers.poll();
+    return buffer != null ? buffer : new PreviewBuffer();
+  }
+
+  private void returnBuffer(PreviewBuffer buffer) {
+    // Un tampon qui a trop grossi n'est pas gardé : le pool reste borné
+    if (buffer.capacity() <= MAX_POOLED_BUFFER_BYTES) {
+      buffer.reset();
+      buffers.offer(buffer);
+    }
+  }
+
+  private static class WatermarkTile {
+    final BufferedImage image;
+    final int textWidth;
+    final int textHeight;
+    final int ascent;
+
+    WatermarkTile(BufferedImage image, int textWidth, int textHeight, int ascent) {
+      this.image = image;
+      this.textWidth = textWidth;
+      this.textHeight = textHeight;
+      this.ascent = ascent;
+    }
+  }
+
+  private static class PreviewBuffer extends ByteArrayOutputStream {
+    PreviewBuffer() {
+      super(INITIAL_BUFFER_BYTES);
+    }
+
+    int capacity() {
+      return buf.length;
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RenderedPreview {
+    private final byte[] data;
+    private final int width;
+    private final int height;
+  }
+}
@@ -0,0 +1,16 @@
+package com.senalbum.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Upload en plusieurs parts en cours côté stockage
+ */
+@Getter
+@AllArgsConstructor
+public class ResumableUpload {
+
+  private final String key; // Clé finale (null tant que le stockage ne l'a pas choisie)
+
+  private final String uploadId; // Identifiant de l'upload côté stockage
+}
@@ -0,0 +1,47 @@
+package com.senalbum.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SortedMap;
+
+/**
+ * Réception d'un fichier en parts numérotées, envoyées dans n'importe quel
+ * ordre et éventuellement renvoyées, puis assemblées en un seul objet
+ */
+public interface ResumableUploadStore {
+
+  /**
+   * Taille minimale d'une part (sauf la dernière)
+   */
+  long minimumPartSize();
+
+  /**
+   * Démarre un upload
+   * 
+   * @param folder      Le dossier logique du fichier final
+   * @param filename    Le nom de fichier d'origine
+   * @param contentType Le type MIME du fichier
+   */
+  ResumableUpload begin(String folder, String filename, String contentType) throws IOException;
+
+  /**
+   * Stocke (ou remplace) une part
+   * 
+   * @return L'ETag de la part
+   */
+  String putPart(ResumableUpload upload, int partNumber, InputStream data, long length) throws IOException;
+
+  /**
+   * Assemble les parts dans l'ordre de leur numéro
+   * 
+   * @param partETags ETag de chaque part, par numéro
+   * @return La clé du fichier final
+   */
+  String complete(ResumableUpload upload, SortedMap<Integer, String> partETags, long totalSize, String contentType)
+      throws IOException;
+
+  /**
+   * Abandonne l'upload et libère les parts déjà reçues
+   */
+  void abort(ResumableUpload upload) throws IOException;
+}
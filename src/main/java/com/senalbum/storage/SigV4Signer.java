@@ -0,0 +1,108 @@
+package com.senalbum.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+/**
+ * Signature AWS Signature Version 4 des policies de POST S3 (Wasabi), que
+ * le SDK ne sait pas produire. Les URLs GET sont signées par le SDK
+ * (voir PresignedUrlCache).
+ */
+class SigV4Signer {
+
+  static final String ALGORITHM = "AWS4-HMAC-SHA256";
+  private static final String SERVICE = "s3";
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+  private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+      .withZone(ZoneOffset.UTC);
+
+  private final String accessKey;
+  private final String secretKey;
+  private final String region;
+
+  // Clé de signature dérivée pour un jour donné (4 HMAC évités à chaque URL)
+  private volatile DerivedKey derivedKey;
+
+  SigV4Signer(String accessKey, String secretKey, String region) {
+    this.accessKey = accessKey;
+    this.secretKey = secretKey;
+    this.region = region;
+  }
+
+  /**
+   * Signature hexadécimale d'une chaîne avec la clé du jour de signedAt
+   */
+  String sign(Instant signedAt, String stringToSign) {
+    return HexFormat.of().formatHex(hmac(signingKey(DATE.format(signedAt)), stringToSign));
+  }
+
+  String credential(Instant signedAt) {
+    return accessKey + "/" + credentialScope(signedAt);
+  }
+
+  static String timestamp(Instant signedAt) {
+    return TIMESTAMP.format(signedAt);
+  }
+
+  private String credentialScope(Instant signedAt) {
+    return DATE.format(signedAt) + "/" + region + "/" + SERVICE + "/aws4_request";
+  }
+
+  private byte[] signingKey(String date) {
+    DerivedKey current = derivedKey;
+    if (current != null && current.date.equals(date)) {
+      return current.key;
+    }
+    byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+    key = hmac(key, region);
+    key = hmac(key, SERVICE);
+    key = hmac(key, "aws4_request");
+    derivedKey = new DerivedKey(date, key);
+    return key;
+  }
+
+  /**
+   * Encodage URI de SigV4 : seuls A-Z a-z 0-9 - _ . ~ restent tels quels
+   * (et « / » dans un chemin)
+   */
+  static String uriEncode(String value, boolean encodeSlash) {
+    StringBuilder out = new StringBuilder();
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      char c = (char) (b & 0xFF);
+      if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+          || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+        out.append(c);
+      } else {
+        out.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)))
+            .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+      }
+    }
+    return out.toString();
+  }
+
+  private static byte[] hmac(byte[] key, String data) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class DerivedKey {
+    final String date;
+    final byte[] key;
+
+    DerivedKey(String date, byte[] key) {
+      this.date = date;
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.senalbum.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Uploads reprenables pour les stockages sans multipart (disque local, base
+ * de données) : les parts sont posées sur le disque du serveur puis
+ * concaténées en un seul flux vers le StorageService à la finalisation.
+ */
+@Component
+public class StagedResumableUploadStore implements ResumableUploadStore {
+
+  @Autowired
+  private StorageService storageService;
+
+  @Value("${app.upload.staging-path:./uploads-staging}")
+  private String stagingPath;
+
+  private Path root;
+
+  @PostConstruct
+  void init() {
+    root = Paths.get(stagingPath).toAbsolutePath().normalize();
+  }
+
+  @Override
+  public long minimumPartSize() {
+    return 1;
+  }
+
+  @Override
+  public ResumableUpload begin(String folder, String filename, String contentType) throws IOException {
+    String uploadId = UUID.randomUUID().toString();
+    Path dir = root.resolve(uploadId);
+    Files.createDirectories(dir);
+    // La clé finale sera choisie par le StorageService : on retient la destination
+    Files.writeString(dir.resolve("target"), folder + "\n" + filename);
+    return new ResumableUpload(null, uploadId);
+  }
+
+  @Override
+  public String putPart(ResumableUpload upload, int partNumber, InputStream data, long length) throws IOException {
+    Path dir = uploadDir(upload);
+    Path temp = Files.createTempFile(dir, ".part-", ".tmp");
+    try (InputStream in = data) {
+      long copied = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+      if (copied != length) {
+        throw new IOException("Incomplete part " + partNumber + ": " + copied + " of " + length + " bytes");
+      }
+      Path part = dir.resolve(partNumber + ".part");
+      try {
+        Files.move(temp, part, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, part, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return Long.toString(copied);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  @Override
+  public String complete(ResumableUpload upload, SortedMap<Integer, String> partETags, long totalSize,
+      String contentType) throws IOException {
+    Path dir = uploadDir(upload);
+    String[] target = Files.readString(dir.resolve("target")).split("\n", 2);
+
+    List<InputStream> parts = new ArrayList<>();
+    try {
+      for (Integer partNumber : partETags.keySet()) {
+        parts.add(Files.newInputStream(dir.resolve(partNumber + ".part")));
+      }
+    } catch (IOException e) {
+      for (InputStream part : parts) {
+        part.close();
+      }
+      throw e;
+    }
+
+    // SequenceInputStream ferme chaque part une fois lue ; saveContent ferme le tout
+    String key = storageService.saveContent(target[0], target[1],
+        new SequenceInputStream(Collections.enumeration(parts)), totalSize, contentType);
+    deleteDirectory(dir);
+    return key;
+  }
+
+  @Override
+  public void abort(ResumableUpload upload) throws IOException {
+    deleteDirectory(uploadDir(upload));
+  }
+
+  private Path uploadDir(ResumableUpload upload) throws IOException {
+    Path dir = root.resolve(upload.getUploadId()).normalize();
+    if (!dir.startsWith(root) || dir.equals(root)) {
+      throw new IOException("Invalid upload id");
+    }
+    return dir;
+  }
+
+  private static void deleteDirectory(Path dir) throws IOException {
+    if (!Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> walk = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.senalbum.storage;
+
+import lombok.Getter;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Fichier ouvert en lecture streaming depuis le stockage.
+ * Le contenu n'est jamais chargé entièrement en mémoire : l'appelant lit le
+ * flux puis le ferme.
+ */
+@Getter
+public class StorageObject implements Closeable {
+
+  private final InputStream inputStream;
+
+  private final long contentLength; // -1 si inconnue
+
+  private final String contentType;
+
+  private final Path file; // Fichier local portant le contenu, null sinon
+
+  private final long fileOffset; // Position du contenu dans le fichier local
+
+  public StorageObject(InputStream inputStream, long contentLength, String contentType) {
+    this(inputStream, contentLength, contentType, null, 0);
+  }
+
+  /**
+   * Contenu adossé à un fichier local : il peut être envoyé sans copie par le
+   * connecteur HTTP (voir {@link StorageResponses})
+   */
+  public StorageObject(InputStream inputStream, long contentLength, String contentType, Path file,
+      long fileOffset) {
+    this.inputStream = inputStream;
+    this.contentLength = contentLength;
+    this.contentType = contentType;
+    this.file = file;
+    this.fileOffset = fileOffset;
+  }
+
+  /**
+   * Expose le flux comme {@link Resource} pour un corps de réponse Spring MVC.
+   * La taille est annoncée directement (-1 si inconnue) pour que le
+   * convertisseur n'ait jamais à lire le flux pour la calculer.
+   */
+  public Resource asResource() {
+    return new InputStreamResource(inputStream) {
+      @Override
+      public long contentLength() {
+        return contentLength;
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+}
@@ -0,0 +1,270 @@
+package com.senalbum.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Construction des réponses HTTP qui servent un fichier du stockage
+ */
+public final class StorageResponses {
+
+  // Attributs de requête reconnus par le connecteur Tomcat (comme pour DefaultServlet)
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private StorageResponses() {
+  }
+
+  /**
+   * ETag fort d'un objet du stockage, calculé sans le lire : une clé n'est
+   * jamais réécrite (chaque écriture crée une nouvelle clé), son empreinte
+   * identifie donc le contenu. Une preview régénérée change de clé, donc
+   * d'ETag.
+   */
+  public static String etag(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+      return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * Termine la réponse avec le contenu du fichier. Quand le contenu est un
+   * fichier local et que Tomcat supporte sendfile, le connecteur envoie les
+   * octets du cache de pages vers la socket ({@code FileChannel.transferTo})
+   * sans passer par le heap ; sinon le flux est copié normalement.
+   */
+  public static ResponseEntity<Resource> body(ResponseEntity.BodyBuilder builder, StorageObject object,
+      HttpServletRequest request) {
+    if (object.getFile() != null && object.getContentLength() >= 0
+        && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, object.getFile().toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, object.getFileOffset());
+      request.setAttribute(SENDFILE_END, object.getFileOffset() + object.getContentLength());
+      closeQuietly(object);
+      return builder.contentLength(object.getContentLength()).build();
+    }
+    return builder.body(object.asResource());
+  }
+
+  /**
+   * Sert un fichier en honorant l'en-tête Range (RFC 7233) : une plage donne
+   * un 206 lu par {@link StorageService#openRange} (seuls les octets demandés
+   * sont lus dans le stockage), plusieurs plages un 206 multipart/byteranges
+   * dont chaque plage n'est ouverte qu'au moment de l'écrire. Sans Range, ou
+   * si If-Range ne correspond plus à l'ETag, le fichier complet est envoyé.
+   *
+   * @param headers        En-têtes de la réponse (type, Content-Disposition...)
+   * @param storageService Le stockage qui porte le fichier
+   * @param path           Le chemin du fichier
+   * @param size           La taille totale du fichier en octets
+   */
+  public static ResponseEntity<Resource> download(HttpHeaders headers, StorageService storageService, String path,
+      long size, HttpServletRequest request) throws IOException {
+    String etag = etag(path);
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.putAll(headers);
+    responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+    responseHeaders.setETag(etag);
+
+    List<HttpRange> ranges = requestedRanges(request, etag);
+    if (ranges.isEmpty()) {
+      return wholeFile(ResponseEntity.ok().headers(responseHeaders), storageService.openOriginalFile(path), request);
+    }
+
+    List<long[]> satisfiable = new ArrayList<>();
+    long total = 0;
+    for (HttpRange range : ranges) {
+      long start = range.getRangeStart(size);
+      long end = Math.min(range.getRangeEnd(size), size - 1);
+      if (start < size && start <= end) {
+        satisfiable.add(new long[] { start, end });
+        total += end - start + 1;
+      }
+      // Sinon plage hors du fichier : ignorée, les autres restent servies
+    }
+    if (satisfiable.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+          .build();
+    }
+    if (total >= size) {
+      // Plages qui couvrent (ou recouvrent plusieurs fois) tout le fichier
+      return wholeFile(ResponseEntity.ok().headers(responseHeaders), storageService.openOriginalFile(path), request);
+    }
+
+    if (satisfiable.size() == 1) {
+      long[] range = satisfiable.get(0);
+      responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+      return body(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(responseHeaders),
+          storageService.openRange(path, range[0], range[1] - range[0] + 1), request);
+    }
+
+    String boundary = UUID.randomUUID().toString().replace("-", "");
+    MediaType partType = headers.getContentType() != null ? headers.getContentType()
+        : MediaType.APPLICATION_OCTET_STREAM;
+    MultiRangeInputStream multipart = new MultiRangeInputStream(storageService, path, size, satisfiable,
+        boundary, partType.toString());
+    responseHeaders.remove(HttpHeaders.CONTENT_DISPOSITION);
+    responseHeaders.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+    responseHeaders.setContentLength(multipart.length());
+    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(responseHeaders)
+        .body(new InputStreamResource(multipart) {
+          @Override
+          public long contentLength() {
+            return multipart.length();
+          }
+        });
+  }
+
+  /**
+   * Réponse 200 avec le fichier complet, même si la requête porte un en-tête
+   * Range. Spring MVC découpe lui-même en plages (ResourceRegion) une réponse
+   * 200 dont le corps est une Resource, sauf pour la classe exacte
+   * {@link InputStreamResource} : c'est donc elle qui porte le flux, et la
+   * taille est annoncée dans les en-têtes.
+   */
+  private static ResponseEntity<Resource> wholeFile(ResponseEntity.BodyBuilder builder, StorageObject object,
+      HttpServletRequest request) {
+    if (object.getFile() != null && object.getContentLength() >= 0
+        && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      return body(builder, object, request);
+    }
+    if (object.getContentLength() >= 0) {
+      builder.contentLength(object.getContentLength());
+    }
+    return builder.body(new InputStreamResource(object.getInputStream()));
+  }
+
+  /**
+   * Plages demandées, ou aucune si l'en-tête est absent, invalide, ou si
+   * If-Range ne désigne plus la même version du fichier
+   */
+  private static List<HttpRange> requestedRanges(HttpServletRequest request, String etag) {
+    String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+    if (rangeHeader == null) {
+      return List.of();
+    }
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (ifRange != null && !ifRange.equals(etag)) {
+      return List.of();
+    }
+    try {
+      return HttpRange.parseRanges(rangeHeader);
+    } catch (IllegalArgumentException e) {
+      return List.of(); // Syntaxe invalide ou trop de plages : en-tête ignoré
+    }
+  }
+
+  /**
+   * Corps multipart/byteranges : en-tête de chaque partie puis octets de la
+   * plage, ouverte dans le stockage seulement quand elle est atteinte
+   */
+  private static class MultiRangeInputStream extends InputStream {
+
+    private final StorageService storageService;
+    private final String path;
+    private final List<long[]> ranges;
+    private final List<byte[]> partHeaders = new ArrayList<>();
+    private final byte[] trailer;
+
+    private int step = 0; // 2i : en-tête de la partie i, 2i + 1 : ses octets, 2n : fin
+    private InputStream current;
+
+    MultiRangeInputStream(StorageService storageService, String path, long size, List<long[]> ranges,
+        String boundary, String contentType) {
+      this.storageService = storageService;
+      this.path = path;
+      this.ranges = ranges;
+      for (long[] range : ranges) {
+        partHeaders.add(("\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: bytes "
+            + range[0] + "-" + range[1] + "/" + size + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      }
+      trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+      current = new ByteArrayInputStream(partHeaders.get(0));
+    }
+
+    long length() {
+      long length = trailer.length;
+      for (int i = 0; i < ranges.size(); i++) {
+        length += partHeaders.get(i).length + ranges.get(i)[1] - ranges.get(i)[0] + 1;
+      }
+      return length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      int n = read(single, 0, 1);
+      return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (current != null) {
+        int n = current.read(b, off, len);
+        if (n >= 0) {
+          return n;
+        }
+        current.close();
+        current = open(++step);
+      }
+      return -1;
+    }
+
+    private InputStream open(int step) throws IOException {
+      int parts = ranges.size();
+      if (step > 2 * parts) {
+        return null;
+      }
+      if (step == 2 * parts) {
+        return new ByteArrayInputStream(trailer);
+      }
+      if (step % 2 == 0) {
+        return new ByteArrayInputStream(partHeaders.get(step / 2));
+      }
+      long[] range = ranges.get(step / 2);
+      return storageService.openRange(path, range[0], range[1] - range[0] + 1).getInputStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+    }
+  }
+
+  private static void closeQuietly(StorageObject object) {
+    try {
+      object.close();
+    } catch (IOException ignored) {
+      // Tomcat rouvre le fichier lui-même
+    }
+  }
+}
@@ -3,6 +3,10 @@ package com.senalbum.storage;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interface abstraite pour le stockage des fichiers
@@ -28,6 +32,20 @@ public interface StorageService {
     String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
             throws IOException;
 
+    /**
+     * Sauvegarde un contenu déjà préparé côté serveur (preview générée,
+     * déclinaison...)
+     * 
+     * @param folder      Le dossier logique (ex : "previews/{albumId}")
+     * @param filename    Le nom de fichier d'origine
+     * @param data        Le flux du contenu (fermé par l'implémentation)
+     * @param length      La taille du contenu en octets
+     * @param contentType Le type MIME du contenu
+     * @return Le chemin relatif du fichier sauvegardé
+     */
+    String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+            throws IOException;
+
     /**
      * Récupère le fichier original
      * 
@@ -44,6 +62,43 @@ public interface StorageService {
      */
     byte[] getPreviewFile(String path) throws IOException;
 
+    /**
+     * Ouvre le fichier original en lecture streaming
+     * 
+     * @param path Le chemin du fichier
+     * @return Le flux du fichier avec sa taille et son type MIME (à fermer par
+     *         l'appelant)
+     */
+    StorageObject openOriginalFile(String path) throws IOException;
+
+    /**
+     * Ouvre le fichier preview en lecture streaming
+     * 
+     * @param path Le chemin du fichier
+     * @return Le flux du fichier avec sa taille et son type MIME (à fermer par
+     *         l'appelant)
+     */
+    StorageObject openPreviewFile(String path) throws IOException;
+
+    /**
+     * Ouvre une plage d'octets d'un fichier, sans lire le reste du fichier
+     * 
+     * @param path   Le chemin du fichier
+     * @param offset La position du premier octet
+     * @param length Le nombre d'octets à lire (tronqué à la fin du fichier)
+     * @return Le flux de la plage, dont la taille est celle de la plage
+     */
+    StorageObject openRange(String path, long offset, long length) throws IOException;
+
+    /**
+     * Lit la taille réelle d'un fichier stocké, sans en lire le contenu
+     * 
+     * @param path Le chemin du fichier
+     * @return La taille en octets
+     * @throws java.nio.file.NoSuchFileException si le fichier n'existe pas
+     */
+    long getFileSize(String path) throws IOException;
+
     /**
      * Supprime un fichier
      * 
@@ -51,6 +106,37 @@ public interface StorageService {
      */
     void deleteFile(String path) throws IOException;
 
+    /**
+     * Supprime plusieurs fichiers en regroupant les appels au stockage
+     * 
+     * @param paths Les chemins des fichiers
+     * @return Les chemins qui n'ont pas pu être supprimés
+     */
+    List<String> deleteFiles(Collection<String> paths);
+
+    /**
+     * Supprime un lot de fichiers d'un dossier logique. À rappeler jusqu'à ce
+     * qu'il renvoie 0 pour vider le dossier.
+     * 
+     * @param folder  Le dossier logique (ex : "albums/{albumId}")
+     * @param maxKeys Le nombre maximal de fichiers supprimés par appel
+     * @return Le nombre de fichiers supprimés (0 : dossier vide, ou stockage
+     *         sans dossiers)
+     */
+    int deleteFolder(String folder, int maxKeys) throws IOException;
+
+    /**
+     * Liste une page de fichiers d'un dossier logique, dans l'ordre des clés
+     * 
+     * @param prefix     Le dossier logique (ex : "albums/")
+     * @param startAfter La dernière clé de la page précédente (null pour
+     *                   commencer)
+     * @param maxKeys    La taille maximale de la page
+     * @return Les fichiers de la page (vide : fin du listing, ou stockage sans
+     *         dossiers)
+     */
+    List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) throws IOException;
+
     /**
      * Génère une URL pré-signée pour l'upload direct (PUT)
      * 
@@ -67,4 +153,12 @@ public interface StorageService {
      * @return L'URL pré-signée
      */
     String generatePresignedDownloadUrl(String objectKey);
+
+    /**
+     * Génère en une fois les URLs pré-signées (GET) de plusieurs fichiers
+     * 
+     * @param objectKeys Les clés (chemins) des fichiers
+     * @return L'URL pré-signée de chaque clé
+     */
+    Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys);
 }
@@ -0,0 +1,20 @@
+package com.senalbum.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Fichier présent sur le stockage, tel que renvoyé par un listing
+ */
+@Getter
+@AllArgsConstructor
+public class StoredFile {
+
+  private final String key;
+
+  private final long size;
+
+  private final Instant lastModified;
+}
@@ -0,0 +1,327 @@
+package com.senalbum.storage;
+
+import com.senalbum.storage.dto.CacheStatsResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache d'octets en mémoire borné en taille totale, avec la politique
+ * W-TinyLFU : une petite fenêtre LRU absorbe les nouveaux objets, puis un
+ * LRU segmenté (probation / protégé) ne les admet que s'ils sont plus
+ * fréquemment demandés que la victime qu'ils remplaceraient. Les fréquences
+ * sont estimées par un count-min sketch à compteurs 4 bits vieillissant.
+ */
+class TinyLfuCache {
+
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.80;
+
+  private final String name;
+  private final long maxBytes;
+  private final long maxEntryBytes;
+  private final long windowMaxBytes;
+  private final long protectedMaxBytes;
+
+  // Segments en ordre d'accès : l'entrée la plus ancienne est en tête
+  private final LinkedHashMap<String, CachedContent> window = new LinkedHashMap<>(64, 0.75f, true);
+  private final LinkedHashMap<String, CachedContent> probation = new LinkedHashMap<>(64, 0.75f, true);
+  private final LinkedHashMap<String, CachedContent> protectedSegment = new LinkedHashMap<>(64, 0.75f, true);
+  private long windowBytes;
+  private long probationBytes;
+  private long protectedBytes;
+
+  private final FrequencySketch sketch;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long rejections;
+
+  TinyLfuCache(String name, long maxBytes, long maxEntryBytes) {
+    this.name = name;
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    this.windowMaxBytes = (long) (maxBytes * WINDOW_RATIO);
+    this.protectedMaxBytes = (long) ((maxBytes - windowMaxBytes) * PROTECTED_RATIO);
+    // Estimation du nombre d'entrées avec des objets de ~64 Ko
+    this.sketch = new FrequencySketch((int) Math.max(64, Math.min(1 << 20, maxBytes / (64 * 1024))));
+  }
+
+  boolean accepts(long size) {
+    return size >= 0 && size <= maxEntryBytes;
+  }
+
+  synchronized CachedContent get(String key) {
+    sketch.increment(key);
+    CachedContent value = window.get(key);
+    if (value == null) {
+      value = protectedSegment.get(key);
+    }
+    if (value == null) {
+      value = probation.remove(key);
+      if (value != null) {
+        // Deuxième accès en probation : promotion dans le segment protégé
+        probationBytes -= value.weight();
+        protectedSegment.put(key, value);
+        protectedBytes += value.weight();
+        demoteProtected();
+      }
+    }
+    if (value == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return value;
+  }
+
+  /**
+   * Lecture sans effet sur les fréquences ni les statistiques (plages d'octets)
+   */
+  synchronized CachedContent peek(String key) {
+    CachedContent value = window.get(key);
+    if (value == null) {
+      value = probation.get(key);
+    }
+    if (value == null) {
+      value = protectedSegment.get(key);
+    }
+    return value;
+  }
+
+  synchronized void put(String key, CachedContent value) {
+    if (!accepts(value.weight()) || contains(key)) {
+      return;
+    }
+    window.put(key, value);
+    windowBytes += value.weight();
+    while (windowBytes > windowMaxBytes && !window.isEmpty()) {
+      Map.Entry<String, CachedContent> eldest = window.entrySet().iterator().next();
+      window.remove(eldest.getKey());
+      windowBytes -= eldest.getValue().weight();
+      admit(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  synchronized void invalidate(String key) {
+    CachedContent removed = window.remove(key);
+    if (removed != null) {
+      windowBytes -= removed.weight();
+    }
+    removed = probation.remove(key);
+    if (removed != null) {
+      probationBytes -= removed.weight();
+    }
+    removed = protectedSegment.remove(key);
+    if (removed != null) {
+      protectedBytes -= removed.weight();
+    }
+  }
+
+  /**
+   * Retire toutes les entrées dont la clé commence par prefix (suppression
+   * d'un dossier)
+   */
+  synchronized void invalidatePrefix(String prefix) {
+    windowBytes -= removePrefix(window, prefix);
+    probationBytes -= removePrefix(probation, prefix);
+    protectedBytes -= removePrefix(protectedSegment, prefix);
+  }
+
+  synchronized CacheStatsResponse stats() {
+    long requests = hits + misses;
+    return new CacheStatsResponse(name, maxBytes, windowBytes + probationBytes + protectedBytes,
+        window.size() + probation.size() + protectedSegment.size(), hits, misses,
+        requests == 0 ? 0 : (double) hits / requests, evictions, rejections);
+  }
+
+  private boolean contains(String key) {
+    return window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key);
+  }
+
+  /**
+   * Candidat sorti de la fenêtre : il entre en probation, puis tant que le
+   * cache principal déborde il affronte la plus ancienne entrée en probation
+   * et seul le plus fréquent des deux reste
+   */
+  private void admit(String candidateKey, CachedContent candidate) {
+    long mainMaxBytes = maxBytes - windowBytes;
+    probation.put(candidateKey, candidate);
+    probationBytes += candidate.weight();
+    int candidateFrequency = sketch.frequency(candidateKey);
+
+    while (probationBytes + protectedBytes > mainMaxBytes) {
+      String victimKey = eldestKey(probation, candidateKey);
+      LinkedHashMap<String, CachedContent> victimSegment = probation;
+      if (victimKey == null) {
+        victimKey = eldestKey(protectedSegment, null);
+        victimSegment = protectedSegment;
+      }
+      if (victimKey == null) {
+        // Le candidat est seul et ne tient pas
+        if (candidateKey != null) {
+          reject(candidateKey);
+        }
+        return;
+      }
+      if (candidateKey != null && candidateFrequency <= sketch.frequency(victimKey)) {
+        reject(candidateKey);
+        candidateKey = null;
+        continue;
+      }
+      CachedContent victim = victimSegment.remove(victimKey);
+      if (victimSegment == probation) {
+        probationBytes -= victim.weight();
+      } else {
+        protectedBytes -= victim.weight();
+      }
+      evictions++;
+    }
+  }
+
+  private void reject(String candidateKey) {
+    CachedContent removed = probation.remove(candidateKey);
+    if (removed != null) {
+      probationBytes -= removed.weight();
+    }
+    rejections++;
+  }
+
+  private void demoteProtected() {
+    while (protectedBytes > protectedMaxBytes && protectedSegment.size() > 1) {
+      Map.Entry<String, CachedContent> eldest = protectedSegment.entrySet().iterator().next();
+      protectedSegment.remove(eldest.getKey());
+      protectedBytes -= eldest.getValue().weight();
+      probation.put(eldest.getKey(), eldest.getValue());
+      probationBytes += eldest.getValue().weight();
+    }
+  }
+
+  private static long removePrefix(LinkedHashMap<String, CachedContent> segment, String prefix) {
+    long removedBytes = 0;
+    Iterator<Map.Entry<String, CachedContent>> it = segment.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, CachedContent> entry = it.next();
+      if (entry.getKey().startsWith(prefix)) {
+        removedBytes += entry.getValue().weight();
+        it.remove();
+      }
+    }
+    return removedBytes;
+  }
+
+  private static String eldestKey(LinkedHashMap<String, CachedContent> segment, String excluded) {
+    Iterator<String> it = segment.keySet().iterator();
+    while (it.hasNext()) {
+      String key = it.next();
+      if (!key.equals(excluded)) {
+        return key;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Contenu mis en cache avec son type MIME
+   */
+  static class CachedContent {
+    final byte[] data;
+    final String contentType;
+
+    CachedContent(byte[] data, String contentType) {
+      this.data = data;
+      this.contentType = contentType;
+    }
+
+    long weight() {
+      return data.length;
+    }
+  }
+
+  /**
+   * Count-min sketch de profondeur 4 à compteurs 4 bits (16 par long). Tous
+   * les compteurs sont divisés par deux après 10 × largeur incréments, pour
+   * que les objets anciennement populaires finissent par céder la place.
+   */
+  static class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+      int size = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+      this.table = new long[size];
+      this.tableMask = size - 1;
+      this.sampleSize = 10 * size;
+    }
+
+    int frequency(String key) {
+      int hash = spread(key.hashCode());
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        frequency = Math.min(frequency, counter(hash, i));
+      }
+      return frequency;
+    }
+
+    void increment(String key) {
+      int hash = spread(key.hashCode());
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(hash, i);
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    private int counter(int hash, int depth) {
+      int index = indexOf(hash, depth);
+      int offset = counterOffset(hash, depth);
+      return (int) ((table[index] >>> offset) & 0xfL);
+    }
+
+    private boolean incrementAt(int hash, int depth) {
+      int index = indexOf(hash, depth);
+      int offset = counterOffset(hash, depth);
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions /= 2;
+    }
+
+    private int indexOf(int hash, int depth) {
+      long h = (hash + SEEDS[depth]) * SEEDS[depth];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+    }
+
+    // Chaque rangée utilise un compteur différent parmi les 16 du mot
+    private int counterOffset(int hash, int depth) {
+      return (((hash >>> (depth * 8)) & 3) << 2) + (depth << 4);
+    }
+
+    private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.senalbum.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads reprenables sur Wasabi : chaque part reçue devient directement une
+ * part d'un multipart upload S3, rien n'est conservé sur le serveur
+ */
+@Component
+public class WasabiResumableUploadStore implements ResumableUploadStore {
+
+  private static final long S3_MINIMUM_PART_SIZE = 5L * 1024 * 1024;
+
+  @Autowired
+  private S3Client s3Client;
+
+  @Value("${wasabi.bucket}")
+  private String bucketName;
+
+  @Override
+  public long minimumPartSize() {
+    return S3_MINIMUM_PART_SIZE;
+  }
+
+  @Override
+  public ResumableUpload begin(String folder, String filename, String contentType) throws IOException {
+    String key = folder + "/" + UUID.randomUUID() + "-" + filename;
+    try {
+      String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+          .bucket(bucketName)
+          .key(key)
+          .contentType(contentType)
+          .build()).uploadId();
+      return new ResumableUpload(key, uploadId);
+    } catch (SdkException e) {
+      throw new IOException("Failed to start multipart upload: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public String putPart(ResumableUpload upload, int partNumber, InputStream data, long length) throws IOException {
+    try (InputStream in = data) {
+      return s3Client.uploadPart(UploadPartRequest.builder()
+          .bucket(bucketName)
+          .key(upload.getKey())
+          .uploadId(upload.getUploadId())
+          .partNumber(partNumber)
+          .contentLength(length)
+          .build(), RequestBody.fromInputStream(in, length)).eTag();
+    } catch (SdkException e) {
+      throw new IOException("Failed to upload part " + partNumber + ": " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public String complete(ResumableUpload upload, SortedMap<Integer, String> partETags, long totalSize,
+      String contentType) throws IOException {
+    List<CompletedPart> parts = partETags.entrySet().stream()
+        .map(part -> CompletedPart.builder().partNumber(part.getKey()).eTag(part.getValue()).build())
+        .collect(Collectors.toList());
+    try {
+      s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(bucketName)
+          .key(upload.getKey())
+          .uploadId(upload.getUploadId())
+          .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+          .build());
+      return upload.getKey();
+    } catch (SdkException e) {
+      throw new IOException("Failed to complete multipart upload: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void abort(ResumableUpload upload) throws IOException {
+    try {
+      s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+          .bucket(bucketName)
+          .key(upload.getKey())
+          .uploadId(upload.getUploadId())
+          .build());
+    } catch (NoSuchUploadException e) {
+      // Déjà terminé ou nettoyé par AbandonedUploadCleaner
+    } catch (SdkException e) {
+      throw new IOException("Failed to abort multipart upload: " + e.getMessage(), e);
+    }
+  }
+}
@@ -2,67 +2,119 @@ package com.senalbum.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.Upload;
+import software.amazon.awssdk.transfer.s3.model.UploadRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 @Service
-@Primary
 public class WasabiStorageService implements StorageService {
 
+  private static final int DELETE_BATCH_SIZE = 1000; // Maximum accepté par DeleteObjects
+
   @Autowired
   private S3Client s3Client;
 
   @Autowired
   private S3Presigner s3Presigner;
 
+  @Autowired
+  private S3TransferManager transferManager;
+
+  @Autowired
+  private PreviewRenderer previewRenderer;
+
+  @Autowired
+  private PresignedUrlCache presignedUrlCache;
+
   @Value("${wasabi.bucket}")
   private String bucketName;
 
   @Override
   public String saveOriginal(MultipartFile file, String albumId) throws IOException {
     String key = "albums/" + albumId + "/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
-
-    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-        .bucket(bucketName)
-        .key(key)
-        .contentType(file.getContentType())
-        .build();
-
-    s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
+    upload(key, file.getContentType(), file.getInputStream(), file.getSize());
     return key;
   }
 
   @Override
   public String savePreview(MultipartFile file, String albumId, boolean watermarkEnabled, String watermarkText)
       throws IOException {
-    // Note: Watermarking is not implemented here as we assume direct upload or
-    // pre-processed files
-    // If server-side processing is needed, we'd need to download, process, and
-    // re-upload.
-    // For now, simple upload similar to saveOriginal
-    String key = "previews/" + albumId + "/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
+    byte[] preview = previewRenderer.render(file.getInputStream(), PreviewRenderer.PREVIEW_MAX_WIDTH,
+        watermarkEnabled, watermarkText);
+    return saveContent("previews/" + albumId, file.getOriginalFilename(), new ByteArrayInputStream(preview),
+        preview.length, PreviewRenderer.PREVIEW_CONTENT_TYPE);
+  }
+
+  @Override
+  public String saveContent(String folder, String filename, InputStream data, long length, String contentType)
+      throws IOException {
+    String key = folder + "/" + UUID.randomUUID() + "-" + filename;
+    upload(key, contentType, data, length);
+    return key;
+  }
 
+  /**
+   * Envoie un flux via le transfer manager : au-delà de la taille d'une part,
+   * le fichier part en multipart upload parallèle. Le client CRT réessaie les
+   * parts en échec et annule le multipart upload si l'envoi échoue.
+   */
+  private void upload(String key, String contentType, InputStream data, long size) throws IOException {
     PutObjectRequest putObjectRequest = PutObjectRequest.builder()
         .bucket(bucketName)
         .key(key)
-        .contentType(file.getContentType())
+        .contentType(contentType)
         .build();
 
-    s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
-    return key;
+    BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(size);
+    Upload upload = transferManager.upload(UploadRequest.builder()
+        .putObjectRequest(putObjectRequest)
+        .requestBody(body)
+        .build());
+
+    try (InputStream in = data) {
+      body.writeInputStream(in);
+      upload.completionFuture().join();
+    } catch (CompletionException e) {
+      throw new IOException("Upload failed for " + key, e.getCause() != null ? e.getCause() : e);
+    } catch (RuntimeException e) {
+      upload.completionFuture().cancel(true);
+      throw new IOException("Upload failed for " + key, e);
+    }
   }
 
   @Override
@@ -80,6 +132,54 @@ public class WasabiStorageService implements StorageService {
     return getOriginalFile(path);
   }
 
+  @Override
+  public StorageObject openOriginalFile(String path) throws IOException {
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucketName)
+        .key(path)
+        .build();
+
+    ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(getObjectRequest);
+    GetObjectResponse response = stream.response();
+    long contentLength = response.contentLength() != null ? response.contentLength() : -1;
+    return new StorageObject(stream, contentLength, response.contentType());
+  }
+
+  @Override
+  public StorageObject openPreviewFile(String path) throws IOException {
+    return openOriginalFile(path);
+  }
+
+  @Override
+  public StorageObject openRange(String path, long offset, long length) throws IOException {
+    long end = length == Long.MAX_VALUE ? -1 : offset + length - 1;
+    GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+        .bucket(bucketName)
+        .key(path)
+        .range("bytes=" + offset + "-" + (end >= 0 ? String.valueOf(end) : ""))
+        .build();
+
+    ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(getObjectRequest);
+    GetObjectResponse response = stream.response();
+    long contentLength = response.contentLength() != null ? response.contentLength() : -1;
+    return new StorageObject(stream, contentLength, response.contentType());
+  }
+
+  @Override
+  public long getFileSize(String path) throws IOException {
+    try {
+      return s3Client.headObject(HeadObjectRequest.builder()
+          .bucket(bucketName)
+          .key(path)
+          .build()).contentLength();
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404) {
+        throw new NoSuchFileException(path);
+      }
+      throw e;
+    }
+  }
+
   @Override
   public void deleteFile(String path) throws IOException {
     DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
@@ -90,6 +190,74 @@ public class WasabiStorageService implements StorageService {
     s3Client.deleteObject(deleteObjectRequest);
   }
 
+  @Override
+  public List<String> deleteFiles(Collection<String> paths) {
+    List<String> keys = new ArrayList<>(paths);
+    List<String> failed = new ArrayList<>();
+    for (int from = 0; from < keys.size(); from += DELETE_BATCH_SIZE) {
+      List<String> batch = keys.subList(from, Math.min(from + DELETE_BATCH_SIZE, keys.size()));
+      List<ObjectIdentifier> objects = new ArrayList<>();
+      for (String key : batch) {
+        objects.add(ObjectIdentifier.builder().key(key).build());
+      }
+      try {
+        // Mode quiet : seules les erreurs sont renvoyées
+        DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+            .bucket(bucketName)
+            .delete(Delete.builder().objects(objects).quiet(true).build())
+            .build());
+        for (S3Error error : response.errors()) {
+          failed.add(error.key());
+        }
+      } catch (SdkException e) {
+        failed.addAll(batch);
+      }
+    }
+    return failed;
+  }
+
+  @Override
+  public int deleteFolder(String folder, int maxKeys) throws IOException {
+    List<ObjectIdentifier> objects = new ArrayList<>();
+    ListObjectsV2Response listing = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+        .bucket(bucketName)
+        .prefix(folder + "/")
+        .maxKeys(Math.min(maxKeys, DELETE_BATCH_SIZE))
+        .build());
+    for (S3Object object : listing.contents()) {
+      objects.add(ObjectIdentifier.builder().key(object.key()).build());
+    }
+    if (objects.isEmpty()) {
+      return 0;
+    }
+    DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+        .bucket(bucketName)
+        .delete(Delete.builder().objects(objects).quiet(true).build())
+        .build());
+    if (!response.errors().isEmpty()) {
+      S3Error error = response.errors().get(0);
+      throw new IOException("Failed to delete " + response.errors().size() + " objects under " + folder + " ("
+          + error.key() + ": " + error.message() + ")");
+    }
+    return objects.size();
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String prefix, String startAfter, int maxKeys) throws IOException {
+    ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+        .bucket(bucketName)
+        .prefix(prefix)
+        .maxKeys(Math.min(maxKeys, 1000));
+    if (startAfter != null) {
+      request.startAfter(startAfter);
+    }
+    List<StoredFile> files = new ArrayList<>();
+    for (S3Object object : s3Client.listObjectsV2(request.build()).contents()) {
+      files.add(new StoredFile(object.key(), object.size() != null ? object.size() : 0, object.lastModified()));
+    }
+    return files;
+  }
+
   @Override
   public String generatePresignedUploadUrl(String objectKey, String contentType) {
     PutObjectRequest objectRequest = PutObjectRequest.builder()
@@ -108,16 +276,11 @@ public class WasabiStorageService implements StorageService {
 
   @Override
   public String generatePresignedDownloadUrl(String objectKey) {
-    GetObjectRequest objectRequest = GetObjectRequest.builder()
-        .bucket(bucketName)
-        .key(objectKey)
-        .build();
-
-    GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-        .signatureDuration(Duration.ofMinutes(60)) // URL valid for 60 minutes
-        .getObjectRequest(objectRequest)
-        .build();
+    return presignedUrlCache.get(objectKey);
+  }
 
-    return s3Presigner.presignGetObject(presignRequest).url().toString();
+  @Override
+  public Map<String, String> generatePresignedDownloadUrls(Collection<String> objectKeys) {
+    return presignedUrlCache.getAll(objectKeys);
   }
 }
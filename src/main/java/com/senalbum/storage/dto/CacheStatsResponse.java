@@ -0,0 +1,20 @@
+package com.senalbum.storage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+  private String name;
+  private long maxBytes;
+  private long sizeBytes;
+  private int entries;
+  private long hits;
+  private long misses;
+  private double hitRate;
+  private long evictions;
+  private long rejections; // Candidats refusés par l'admission TinyLFU
+}
@@ -0,0 +1,18 @@
+package com.senalbum.storage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedPostResponse {
+  private String url;
+  private String keyPrefix;
+  private Map<String, String> fields;
+  private Instant expiresAt;
+}
@@ -0,0 +1,26 @@
+package com.senalbum.storage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageGcReport {
+  private Instant startedAt;
+  private Instant finishedAt;
+  private boolean dryRun;
+  private long referencedKeys;
+  private long filterBytes; // Mémoire du filtre de Bloom des clés référencées
+  private long scannedObjects;
+  private long scannedBytes;
+  private long orphanObjects; // Non référencés et plus vieux que le délai de grâce
+  private long orphanBytes;
+  private long deletedObjects;
+  private long reclaimedBytes;
+  private long failedObjects;
+  private String error;
+}
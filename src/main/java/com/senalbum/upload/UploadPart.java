@@ -0,0 +1,36 @@
+package com.senalbum.upload;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Part reçue d'une session d'upload
+ */
+@Entity
+@Table(name = "upload_parts", uniqueConstraints = @UniqueConstraint(name = "uk_upload_parts_session_part", columnNames = {
+        "session_id", "part_number" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "session_id", nullable = false)
+    private UUID sessionId;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber; // 1 pour la part à l'offset 0
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(nullable = false)
+    private String etag;
+}
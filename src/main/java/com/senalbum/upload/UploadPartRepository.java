@@ -0,0 +1,25 @@
+package com.senalbum.upload;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadPartRepository extends JpaRepository<UploadPart, UUID> {
+
+    List<UploadPart> findBySessionIdOrderByPartNumberAsc(UUID sessionId);
+
+    Optional<UploadPart> findBySessionIdAndPartNumber(UUID sessionId, Integer partNumber);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadPart p WHERE p.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") UUID sessionId);
+}
@@ -0,0 +1,75 @@
+package com.senalbum.upload;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Upload reprenable d'une photo : le fichier arrive en parts de taille fixe,
+ * dans n'importe quel ordre, et la Photo n'est créée qu'à la finalisation
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = @Index(name = "idx_upload_sessions_status_expires", columnList = "status, expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    public enum Status {
+        ACTIVE, ASSEMBLED, COMPLETED, ABORTED, EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "photographer_id", nullable = false)
+    private UUID photographerId;
+
+    @Column(name = "album_id", nullable = false)
+    private UUID albumId;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Long chunkSize; // Toutes les parts font cette taille, sauf la dernière
+
+    @Column(name = "storage_key")
+    private String storageKey; // Clé finale si le stockage la fixe dès le départ, sinon dès l'assemblage
+
+    @Column(name = "storage_upload_id", nullable = false)
+    private String storageUploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.ACTIVE;
+
+    @Column(name = "photo_id")
+    private UUID photoId; // Photo créée à la finalisation
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // Repoussée à chaque part reçue
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public int partCount() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+}
@@ -0,0 +1,73 @@
+package com.senalbum.upload;
+
+import com.senalbum.photo.dto.PhotoResponse;
+import com.senalbum.security.SecurityUtils;
+import com.senalbum.upload.dto.UploadSessionRequest;
+import com.senalbum.upload.dto.UploadSessionResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Controller des uploads reprenables (endpoints privés).
+ * Chaque part est envoyée brute dans le corps d'un PUT ?offset=...
+ */
+@RestController
+@RequestMapping("/api/albums/{albumId}/uploads")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @PathVariable UUID albumId,
+            @RequestBody UploadSessionRequest request) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(uploadSessionService.createSession(photographerId, albumId, request));
+    }
+
+    @PutMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> putChunk(
+            @PathVariable UUID albumId,
+            @PathVariable UUID sessionId,
+            @RequestParam long offset,
+            HttpServletRequest request) throws IOException {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        UploadSessionResponse response = uploadSessionService.putChunk(photographerId, albumId, sessionId, offset,
+                request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> getSession(
+            @PathVariable UUID albumId,
+            @PathVariable UUID sessionId) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(uploadSessionService.getSession(photographerId, albumId, sessionId));
+    }
+
+    @PostMapping("/{sessionId}/finalize")
+    public ResponseEntity<PhotoResponse> finalizeSession(
+            @PathVariable UUID albumId,
+            @PathVariable UUID sessionId) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        return ResponseEntity.ok(uploadSessionService.finalizeSession(photographerId, albumId, sessionId));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> abortSession(
+            @PathVariable UUID albumId,
+            @PathVariable UUID sessionId) {
+        UUID photographerId = securityUtils.getCurrentPhotographerId();
+        uploadSessionService.abortSession(photographerId, albumId, sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
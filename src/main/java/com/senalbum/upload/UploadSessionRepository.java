@@ -0,0 +1,16 @@
+package com.senalbum.upload;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    List<UploadSession> findTop100ByStatusInAndExpiresAtBefore(Collection<UploadSession.Status> statuses,
+            LocalDateTime now);
+}
@@ -0,0 +1,296 @@
+package com.senalbum.upload;
+
+import com.senalbum.album.Album;
+import com.senalbum.album.AlbumService;
+import com.senalbum.photo.PhotoService;
+import com.senalbum.photo.dto.ConfirmUploadRequest;
+import com.senalbum.photo.dto.PhotoResponse;
+import com.senalbum.storage.ResumableUpload;
+import com.senalbum.storage.ResumableUploadStore;
+import com.senalbum.storage.StorageService;
+import com.senalbum.upload.dto.UploadSessionRequest;
+import com.senalbum.upload.dto.UploadSessionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Uploads reprenables : le client découpe le fichier en parts de chunkSize
+ * octets et envoie chacune à son offset. Une part perdue est simplement
+ * renvoyée ; après une coupure, le client demande l'état de la session et
+ * reprend à receivedOffset au lieu de tout renvoyer.
+ * Aucune transaction n'est ouverte pendant le transfert d'une part.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    @Autowired
+    private UploadSessionRepository sessionRepository;
+
+    @Autowired
+    private UploadPartRepository partRepository;
+
+    @Autowired
+    private ResumableUploadStore uploadStore;
+
+    @Autowired
+    private AlbumService albumService;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.chunk-size-bytes:8388608}")
+    private long chunkSizeBytes;
+
+    @Value("${app.upload.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    public UploadSessionResponse createSession(UUID photographerId, UUID albumId, UploadSessionRequest request) {
+        Album album = getOwnedAlbum(photographerId, albumId);
+        if (request.getFilename() == null || request.getFilename().isBlank()) {
+            throw new RuntimeException("Filename is required");
+        }
+        if (request.getSize() == null || request.getSize() <= 0) {
+            throw new RuntimeException("File size must be positive");
+        }
+
+        // Refusé dès le départ plutôt qu'après l'envoi de tout le fichier
+        photoService.checkStorageQuota(album, request.getSize());
+
+        String contentType = request.getContentType() != null ? request.getContentType() : "application/octet-stream";
+        long chunkSize = Math.max(chunkSizeBytes, uploadStore.minimumPartSize());
+
+        ResumableUpload upload;
+        try {
+            upload = uploadStore.begin("albums/" + albumId, request.getFilename(), contentType);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start upload: " + e.getMessage(), e);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setPhotographerId(photographerId);
+        session.setAlbumId(albumId);
+        session.setFilename(request.getFilename());
+        session.setContentType(contentType);
+        session.setTotalSize(request.getSize());
+        session.setChunkSize(chunkSize);
+        session.setStorageKey(upload.getKey());
+        session.setStorageUploadId(upload.getUploadId());
+        session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+        session = sessionRepository.save(session);
+
+        return toResponse(session, List.of());
+    }
+
+    /**
+     * Reçoit la part commençant à offset. Renvoyer une part déjà reçue la
+     * remplace, ce qui rend chaque envoi idempotent.
+     */
+    public UploadSessionResponse putChunk(UUID photographerId, UUID albumId, UUID sessionId, long offset,
+            InputStream data, long length) {
+        UploadSession session = getActiveSession(photographerId, albumId, sessionId);
+
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new RuntimeException("Offset must be a multiple of " + session.getChunkSize()
+                    + " below " + session.getTotalSize());
+        }
+        long expectedLength = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+        if (length != expectedLength) {
+            throw new RuntimeException("Chunk at offset " + offset + " must be " + expectedLength + " bytes");
+        }
+
+        int partNumber = (int) (offset / session.getChunkSize()) + 1;
+        String etag;
+        try {
+            etag = uploadStore.putPart(toUpload(session), partNumber, data, length);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store chunk: " + e.getMessage(), e);
+        }
+
+        UploadPart part = partRepository.findBySessionIdAndPartNumber(sessionId, partNumber)
+                .orElseGet(UploadPart::new);
+        part.setSessionId(sessionId);
+        part.setPartNumber(partNumber);
+        part.setSize(length);
+        part.setEtag(etag);
+        partRepository.save(part);
+
+        session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+        sessionRepository.save(session);
+
+        return toResponse(session, partRepository.findBySessionIdOrderByPartNumberAsc(sessionId));
+    }
+
+    public UploadSessionResponse getSession(UUID photographerId, UUID albumId, UUID sessionId) {
+        UploadSession session = getOwnedSession(photographerId, albumId, sessionId);
+        return toResponse(session, partRepository.findBySessionIdOrderByPartNumberAsc(sessionId));
+    }
+
+    /**
+     * Assemble les parts et crée la photo, comme une confirmation d'upload
+     * présigné (aperçu généré ensuite par le worker). L'assemblage est
+     * enregistré (ASSEMBLED) avant la création de la photo : si celle-ci
+     * échoue (quota atteint entre-temps...), une nouvelle finalisation ne
+     * refait que la confirmation, et l'expiration supprime le fichier assemblé.
+     */
+    public PhotoResponse finalizeSession(UUID photographerId, UUID albumId, UUID sessionId) {
+        UploadSession session = getOwnedSession(photographerId, albumId, sessionId);
+        if (session.getStatus() == UploadSession.Status.ACTIVE) {
+            assemble(session);
+        } else if (session.getStatus() != UploadSession.Status.ASSEMBLED) {
+            throw new RuntimeException("Upload session is " + session.getStatus().name().toLowerCase());
+        }
+
+        // Photo et fin de session dans la même transaction : une session
+        // ASSEMBLED n'a jamais de photo, son fichier peut être supprimé
+        return transactionTemplate.execute(status -> {
+            PhotoResponse photo = photoService.confirmAssembledUpload(photographerId, albumId,
+                    new ConfirmUploadRequest(session.getStorageKey(), null, session.getFilename(),
+                            session.getTotalSize(), session.getContentType(), null));
+            session.setPhotoId(photo.getId());
+            session.setStatus(UploadSession.Status.COMPLETED);
+            sessionRepository.save(session);
+            return photo;
+        });
+    }
+
+    private void assemble(UploadSession session) {
+        List<UploadPart> parts = partRepository.findBySessionIdOrderByPartNumberAsc(session.getId());
+
+        int partCount = session.partCount();
+        SortedMap<Integer, String> etags = new TreeMap<>();
+        for (UploadPart part : parts) {
+            etags.put(part.getPartNumber(), part.getEtag());
+        }
+        if (etags.size() != partCount) {
+            throw new RuntimeException("Upload incomplete: " + etags.size() + " of " + partCount + " chunks received");
+        }
+
+        // Le quota a pu être consommé depuis la création de la session : refusé avant d'assembler
+        photoService.checkStorageQuota(getOwnedAlbum(session.getPhotographerId(), session.getAlbumId()),
+                session.getTotalSize());
+
+        String key;
+        try {
+            key = uploadStore.complete(toUpload(session), etags, session.getTotalSize(), session.getContentType());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to assemble upload: " + e.getMessage(), e);
+        }
+
+        session.setStorageKey(key);
+        session.setStatus(UploadSession.Status.ASSEMBLED);
+        session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+        sessionRepository.save(session);
+        partRepository.deleteBySessionId(session.getId());
+    }
+
+    public void abortSession(UUID photographerId, UUID albumId, UUID sessionId) {
+        UploadSession session = getOwnedSession(photographerId, albumId, sessionId);
+        if (session.getStatus() != UploadSession.Status.ACTIVE
+                && session.getStatus() != UploadSession.Status.ASSEMBLED) {
+            throw new RuntimeException("Upload session is " + session.getStatus().name().toLowerCase());
+        }
+        release(session, UploadSession.Status.ABORTED);
+    }
+
+    /**
+     * Libère les sessions abandonnées : parts (ou fichier assemblé sans
+     * photo) supprimées du stockage et de la base
+     */
+    @Scheduled(fixedDelayString = "${app.upload.expiry-check-interval-ms:600000}")
+    public void expireSessions() {
+        List<UploadSession> expired;
+        do {
+            expired = sessionRepository.findTop100ByStatusInAndExpiresAtBefore(
+                    List.of(UploadSession.Status.ACTIVE, UploadSession.Status.ASSEMBLED), LocalDateTime.now());
+            for (UploadSession session : expired) {
+                try {
+                    release(session, UploadSession.Status.EXPIRED);
+                } catch (Exception e) {
+                    logger.warn("Failed to expire upload session {}: {}", session.getId(), e.getMessage());
+                    return;
+                }
+            }
+        } while (!expired.isEmpty());
+    }
+
+    private void release(UploadSession session, UploadSession.Status status) {
+        try {
+            if (session.getStatus() == UploadSession.Status.ASSEMBLED) {
+                storageService.deleteFile(session.getStorageKey());
+            } else {
+                uploadStore.abort(toUpload(session));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to abort upload: " + e.getMessage(), e);
+        }
+        partRepository.deleteBySessionId(session.getId());
+        session.setStatus(status);
+        sessionRepository.save(session);
+    }
+
+    private Album getOwnedAlbum(UUID photographerId, UUID albumId) {
+        Album album = albumService.getAlbumEntity(albumId);
+        if (!album.getPhotographer().getId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Album does not belong to photographer");
+        }
+        return album;
+    }
+
+    private UploadSession getOwnedSession(UUID photographerId, UUID albumId, UUID sessionId) {
+        UploadSession session = sessionRepository.findById(sessionId)
+                .filter(found -> found.getAlbumId().equals(albumId))
+                .orElseThrow(() -> new RuntimeException("Upload session not found"));
+        if (!session.getPhotographerId().equals(photographerId)) {
+            throw new RuntimeException("Unauthorized: Upload session does not belong to photographer");
+        }
+        return session;
+    }
+
+    private UploadSession getActiveSession(UUID photographerId, UUID albumId, UUID sessionId) {
+        UploadSession session = getOwnedSession(photographerId, albumId, sessionId);
+        if (session.getStatus() != UploadSession.Status.ACTIVE) {
+            throw new RuntimeException("Upload session is " + session.getStatus().name().toLowerCase());
+        }
+        return session;
+    }
+
+    private static ResumableUpload toUpload(UploadSession session) {
+        return new ResumableUpload(session.getStorageKey(), session.getStorageUploadId());
+    }
+
+    private static UploadSessionResponse toResponse(UploadSession session, List<UploadPart> parts) {
+        List<Integer> received = new ArrayList<>();
+        int contiguous = 0;
+        for (UploadPart part : parts) {
+            received.add(part.getPartNumber());
+            if (part.getPartNumber() == contiguous + 1) {
+                contiguous++;
+            }
+        }
+        long receivedOffset = Math.min(contiguous * session.getChunkSize(), session.getTotalSize());
+        return new UploadSessionResponse(session.getId(), session.getStatus(), session.getTotalSize(),
+                session.getChunkSize(), receivedOffset, received, session.getExpiresAt());
+    }
+}
@@ -0,0 +1,14 @@
+package com.senalbum.upload.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequest {
+  private String filename;
+  private Long size;
+  private String contentType;
+}
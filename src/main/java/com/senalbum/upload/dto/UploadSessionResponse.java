@@ -0,0 +1,23 @@
+package com.senalbum.upload.dto;
+
+import com.senalbum.upload.UploadSession;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+  private UUID id;
+  private UploadSession.Status status;
+  private long totalSize;
+  private long chunkSize;
+  private long receivedOffset; // Octets reçus sans trou depuis le début : reprendre ici
+  private List<Integer> receivedParts;
+  private LocalDateTime expiresAt;
+}
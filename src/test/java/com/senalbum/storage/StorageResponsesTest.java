@@ -0,0 +1,119 @@
+package com.senalbum.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StorageResponsesTest {
+
+  private static final String PATH = "albums/a/1234-photo.jpg";
+  private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    StorageService storageService = mock(StorageService.class);
+    when(storageService.openOriginalFile(PATH)).thenAnswer(invocation -> new StorageObject(
+        new ByteArrayInputStream(CONTENT), CONTENT.length, "image/jpeg"));
+    when(storageService.openRange(eq(PATH), anyLong(), anyLong())).thenAnswer(invocation -> {
+      int offset = (int) (long) invocation.getArgument(1, Long.class);
+      int length = (int) (long) invocation.getArgument(2, Long.class);
+      return new StorageObject(new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, offset, offset + length)),
+          length, "image/jpeg");
+    });
+    mockMvc = MockMvcBuilders.standaloneSetup(new DownloadController(storageService)).build();
+  }
+
+  @Test
+  void ifRangeMismatchSendsWholeFile() throws Exception {
+    mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=5-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+        .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+        .andExpect(content().bytes(CONTENT));
+  }
+
+  @Test
+  void ifRangeMatchSendsRange() throws Exception {
+    mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=5-9")
+        .header(HttpHeaders.IF_RANGE, StorageResponses.etag(PATH)))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/" + CONTENT.length))
+        .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 5, 10)));
+  }
+
+  @Test
+  void malformedRangeIsIgnored() throws Exception {
+    mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=oops"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+        .andExpect(content().bytes(CONTENT));
+  }
+
+  @Test
+  void rangeCoveringWholeFileSendsOk() throws Exception {
+    mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=0-"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+        .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+        .andExpect(content().bytes(CONTENT));
+  }
+
+  @Test
+  void rangeBeyondEndIsNotSatisfiable() throws Exception {
+    mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=100-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length));
+  }
+
+  @Test
+  void multipleRangesSendMultipart() throws Exception {
+    byte[] body = mockMvc.perform(get("/download").header(HttpHeaders.RANGE, "bytes=0-1,5-6"))
+        .andExpect(status().isPartialContent())
+        .andReturn().getResponse().getContentAsByteArray();
+    String text = new String(body, StandardCharsets.US_ASCII);
+    assertTrue(text.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+    assertTrue(text.contains("Content-Range: bytes 5-6/20\r\n\r\n56\r\n"));
+  }
+
+  @RestController
+  static class DownloadController {
+
+    private final StorageService storageService;
+
+    DownloadController(StorageService storageService) {
+      this.storageService = storageService;
+    }
+
+    @GetMapping("/download")
+    ResponseEntity<Resource> download(HttpServletRequest request) throws IOException {
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.IMAGE_JPEG);
+      return StorageResponses.download(headers, storageService, PATH, CONTENT.length, request);
+    }
+  }
+}